@@ -0,0 +1,63 @@
+package ninad.sudoku.bench;
+
+import ninad.sudoku.logic.BoardShape;
+import ninad.sudoku.logic.GridShuffler;
+import ninad.sudoku.logic.SudokuGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Full solution grids: the shuffler alone, and whole generators with random
+ * removal (cheap) so the difference between the two strategies is the grid cost.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class FullGridBenchmark {
+
+    @Param({"9", "16"})
+    public int size;
+
+    private BoardShape shape;
+    private GridShuffler shuffler;
+    private int[][] grid;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        shape = BoardShape.forSize(size);
+        shuffler = new GridShuffler(shape, new SplittableRandom());
+        grid = shape.newGrid();
+    }
+
+    @Benchmark
+    public int[][] shuffle() {
+        shuffler.next(grid);
+        return grid;
+    }
+
+    @Benchmark
+    public SudokuGenerator generatorBacktracking() {
+        return new SudokuGenerator(shape, "easy", SudokuGenerator.Removal.RANDOM, SudokuGenerator.FullGrid.BACKTRACKING);
+    }
+
+    @Benchmark
+    public SudokuGenerator generatorShuffle() {
+        return new SudokuGenerator(shape, "easy", SudokuGenerator.Removal.RANDOM, SudokuGenerator.FullGrid.SHUFFLE);
+    }
+}
@@ -0,0 +1,42 @@
+package ninad.sudoku.bench;
+
+import ninad.sudoku.logic.BoardShape;
+import ninad.sudoku.logic.SudokuGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/** Cost of generating a 9x9 puzzle: full grid plus clue removal in each removal mode and symmetry. */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class GeneratorBenchmark {
+
+    @Param({"easy", "medium", "hard"})
+    public String difficulty;
+
+    @Param({"RANDOM", "UNIQUE", "MINIMAL"})
+    public SudokuGenerator.Removal removal;
+
+    @Param({"NONE", "ROTATIONAL", "BOTH_MIRRORS"})
+    public SudokuGenerator.Symmetry symmetry;
+
+    @Benchmark
+    public SudokuGenerator generate() {
+        return new SudokuGenerator(BoardShape.STANDARD, difficulty, removal, SudokuGenerator.FullGrid.BACKTRACKING,
+                symmetry, ThreadLocalRandom.current().nextLong());
+    }
+}
@@ -0,0 +1,94 @@
+package ninad.sudoku.bench;
+
+import ninad.sudoku.logic.BoardShape;
+import ninad.sudoku.logic.DancingLinksSolver;
+import ninad.sudoku.logic.ParallelSolver;
+import ninad.sudoku.logic.SudokuGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ParallelSolver at several pool sizes against single-threaded Dancing Links,
+ * one puzzle of the corpus per operation. "16x16" is a fixed set of generated
+ * puzzles with unique solutions. The "easy" corpus shows what the sequential
+ * first attempt costs on grids that never reach the pool.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class ParallelSolverBenchmark {
+
+    private static final long[] SEEDS_16 = {1, 2, 3, 4};
+
+    @Param({"easy", "hard", "adversarial", "16x16"})
+    public String corpus;
+
+    @Param({"1", "2", "4", "8"})
+    public int threads;
+
+    private int[][][] puzzles;
+    private int next;
+    private ForkJoinPool pool;
+    private ParallelSolver parallel;
+    private DancingLinksSolver dancingLinks;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        if (corpus.equals("16x16")) {
+            puzzles = new int[SEEDS_16.length][][];
+            for (int i = 0; i < SEEDS_16.length; i++) {
+                puzzles[i] = new SudokuGenerator(BoardShape.forSize(16), "hard", SudokuGenerator.Removal.UNIQUE,
+                        SudokuGenerator.FullGrid.SHUFFLE, SEEDS_16[i]).getPuzzleGrid();
+            }
+        } else {
+            puzzles = Puzzles.parseAll(Puzzles.corpus(corpus));
+        }
+        pool = new ForkJoinPool(threads);
+        parallel = new ParallelSolver(pool);
+        dancingLinks = new DancingLinksSolver();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    private int[][] nextPuzzle() {
+        int[][] puzzle = puzzles[next];
+        next = (next + 1) % puzzles.length;
+        return puzzle;
+    }
+
+    @Benchmark
+    public int[][] parallel() {
+        return parallel.solveCopy(nextPuzzle());
+    }
+
+    /** Single-threaded baseline; the threads parameter does not apply. */
+    @Benchmark
+    public int[][] dancingLinks() {
+        return dancingLinks.solveCopy(nextPuzzle());
+    }
+
+    @Benchmark
+    public int parallelCountToTwo() {
+        return parallel.countSolutions(nextPuzzle(), 2);
+    }
+}
@@ -0,0 +1,68 @@
+package ninad.sudoku.bench;
+
+/**
+ * Fixed puzzle corpora for the benchmarks. Every puzzle has a unique solution.
+ */
+public final class Puzzles {
+
+    /** Newspaper-style puzzles, solved by singles alone. */
+    public static final String[] EASY = {
+            "003020600900305001001806400008102900700000008006708200002609500800203009005010300",
+            "200080300060070084030500209000105408000000000402706000301007040720040060004010003",
+            "000000907000420180000705026100904000050000040000507009920108000034059000507000000",
+    };
+
+    /** Well-known hard puzzles that need guessing or advanced techniques. */
+    public static final String[] HARD = {
+            "8..........36......7..9.2...5...7.......457.....1...3...1....68..85...1..9....4..",
+            ".2.4.37.........32........4.4.2...7.8...5.........1...5.....9...3.9....7..1..86..",
+            "1....7.9..3..2...8..96..5....53..9...1..8...26....4...3......1..4......7..7...3..",
+    };
+
+    /** Minimal 17-clue puzzles. */
+    public static final String[] MINIMAL_17 = {
+            "4.....8.5.3..........7......2.....6.....8.4......1.......6.3.7.5..2.....1.4......",
+            "52...6.........7.13...........4..8..6......5...........418.........3..2...87.....",
+            "...8.1..........435............7.8........1...2..3....6......75..34........2..6..",
+    };
+
+    /** Built to defeat row-major backtracking: the first row's solution is 987654321. */
+    public static final String[] ADVERSARIAL = {
+            "..............3.85..1.2.......5.7.....4...1...9.......5......73..2.1........4...9",
+    };
+
+    private Puzzles() {
+    }
+
+    public static String[] corpus(String name) {
+        return switch (name) {
+            case "easy" -> EASY;
+            case "hard" -> HARD;
+            case "minimal17" -> MINIMAL_17;
+            case "adversarial" -> ADVERSARIAL;
+            default -> throw new IllegalArgumentException("Unknown corpus: " + name);
+        };
+    }
+
+    /** Parse an 81-character puzzle, '.' or '0' for empty cells. */
+    public static int[][] parse(String puzzle) {
+        int[][] grid = new int[9][9];
+        for (int i = 0; i < 81; i++) {
+            char ch = puzzle.charAt(i);
+            grid[i / 9][i % 9] = ch >= '1' && ch <= '9' ? ch - '0' : 0;
+        }
+        return grid;
+    }
+
+    public static int[][][] parseAll(String[] puzzles) {
+        int[][][] grids = new int[puzzles.length][][];
+        for (int i = 0; i < puzzles.length; i++) grids[i] = parse(puzzles[i]);
+        return grids;
+    }
+
+    public static int[][] copy(int[][] grid) {
+        int[][] copy = new int[grid.length][];
+        for (int i = 0; i < grid.length; i++) copy[i] = grid[i].clone();
+        return copy;
+    }
+}
@@ -0,0 +1,44 @@
+package ninad.sudoku.bench;
+
+import ninad.sudoku.logic.DifficultyRater;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/** Technique-based rating of every puzzle in a corpus, one rater per thread. */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class RaterBenchmark {
+
+    @Param({"easy", "hard", "minimal17"})
+    public String corpus;
+
+    private final DifficultyRater rater = new DifficultyRater();
+    private int[][][] puzzles;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        puzzles = Puzzles.parseAll(Puzzles.corpus(corpus));
+    }
+
+    @Benchmark
+    public void rateCorpus(Blackhole bh) {
+        for (int[][] puzzle : puzzles) bh.consume(rater.rate(puzzle));
+    }
+}
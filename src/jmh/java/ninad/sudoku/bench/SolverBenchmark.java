@@ -0,0 +1,72 @@
+package ninad.sudoku.bench;
+
+import ninad.sudoku.logic.DancingLinksSolver;
+import ninad.sudoku.logic.PropagatingSolver;
+import ninad.sudoku.logic.Solver;
+import ninad.sudoku.logic.SudokuSolver;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/** Solve one puzzle of the corpus per operation, cycling through it. */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class SolverBenchmark {
+
+    @Param({"easy", "hard", "minimal17", "adversarial"})
+    public String corpus;
+
+    private int[][][] puzzles;
+    private int next;
+    private Solver propagating;
+    private Solver dancingLinks;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        puzzles = Puzzles.parseAll(Puzzles.corpus(corpus));
+        propagating = new PropagatingSolver();
+        dancingLinks = new DancingLinksSolver();
+    }
+
+    private int[][] nextPuzzle() {
+        int[][] puzzle = puzzles[next];
+        next = (next + 1) % puzzles.length;
+        return puzzle;
+    }
+
+    /** The static entry point, i.e. plain backtracking. */
+    @Benchmark
+    public int[][] backtracking() {
+        return SudokuSolver.solveCopy(nextPuzzle());
+    }
+
+    @Benchmark
+    public int[][] propagation() {
+        return propagating.solveCopy(nextPuzzle());
+    }
+
+    @Benchmark
+    public int[][] dancingLinks() {
+        return dancingLinks.solveCopy(nextPuzzle());
+    }
+
+    @Benchmark
+    public int countSolutionsToTwo() {
+        return SudokuSolver.countSolutions(nextPuzzle(), 2);
+    }
+}
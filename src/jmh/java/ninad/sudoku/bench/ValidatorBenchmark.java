@@ -0,0 +1,85 @@
+package ninad.sudoku.bench;
+
+import ninad.sudoku.logic.BoardShape;
+import ninad.sudoku.logic.GridValidator;
+import ninad.sudoku.logic.PuzzleValidator;
+import ninad.sudoku.logic.SudokuSolver;
+import ninad.sudoku.logic.SudokuValidator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Whole-grid and single-cell validation on puzzles and their solutions, and
+ * batch validation of packed grids with and without the Vector API module.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ValidatorBenchmark {
+
+    private static final int BATCH = 4096;
+
+    @Param({"easy", "minimal17"})
+    public String corpus;
+
+    private int[][] puzzle;
+    private int[][] solution;
+    private byte[] batch;
+    private boolean[] results;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        puzzle = Puzzles.parse(Puzzles.corpus(corpus)[0]);
+        solution = SudokuSolver.solveCopy(puzzle, SudokuSolver.Mode.PROPAGATION);
+        batch = new byte[BATCH * 81];
+        for (int i = 0; i < BATCH; i++) GridValidator.pack(i % 2 == 0 ? puzzle : solution, batch, i * 81);
+        results = new boolean[BATCH];
+    }
+
+    @Benchmark
+    public boolean isValidPuzzle() {
+        return SudokuValidator.isValid(puzzle);
+    }
+
+    @Benchmark
+    public boolean isValidSolution() {
+        return SudokuValidator.isValid(solution);
+    }
+
+    @Benchmark
+    public boolean validateSingle() {
+        return SudokuValidator.validateSingle(solution, 4, 4);
+    }
+
+    @Benchmark
+    public String validatePuzzle() {
+        return PuzzleValidator.validatePuzzle(puzzle);
+    }
+
+    /** 4096 packed grids per call; divide by 4096 for the cost per grid. */
+    @Benchmark
+    public int validateAllScalar() {
+        return GridValidator.validateAll(batch, BoardShape.STANDARD, results);
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+    public int validateAllVector() {
+        return GridValidator.validateAll(batch, BoardShape.STANDARD, results);
+    }
+}
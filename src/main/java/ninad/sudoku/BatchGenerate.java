@@ -0,0 +1,237 @@
+package ninad.sudoku;
+
+import ninad.sudoku.logic.BoardShape;
+import ninad.sudoku.logic.DancingLinksSolver;
+import ninad.sudoku.logic.DifficultyRater;
+import ninad.sudoku.logic.GridCanonicalizer;
+import ninad.sudoku.logic.SudokuGenerator;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Headless bulk puzzle generator for building puzzle packs.
+ * <p>
+ * Generates N puzzles per difficulty on all cores and verifies each one:
+ * the solution must be unique, the technique-based rating must match the
+ * requested difficulty and the puzzle must not be a symmetry copy of one
+ * already written. Accepted puzzles are written as they finish, one CSV line each:
+ * <pre>puzzle,solution,difficulty,hardest,score,id</pre>
+ * The puzzle comes first in the 81-character format ('.' for empty cells), so
+ * the output can be fed to {@link BatchSolve} directly; the ID regenerates
+ * the puzzle with {@link SudokuGenerator#fromPuzzleId}.
+ * <p>
+ * Attempt seeds are drawn in order from the master seed, so a run can be
+ * repeated; which attempts end up in the file depends on thread timing.
+ * At the end the command prints puzzles/sec, the rejection rate per reason
+ * and how the worker time split between fill, removal and verification.
+ * If a worker fails, e.g. on a write error, the other workers stop and
+ * {@link #run} throws the first failure instead of printing the summary.
+ * <p>
+ * Usage: {@code java -cp sudoku-app.jar ninad.sudoku.BatchGenerate <output> <count>
+ * [difficulties] [threads] [seed]} where difficulties is a comma-separated list,
+ * by default {@code easy,medium,hard}.
+ */
+public class BatchGenerate {
+
+    /** Attempts per requested puzzle before a difficulty is given up. */
+    private static final int MAX_ATTEMPTS_PER_PUZZLE = 100;
+
+    private final int threads;
+    private final int count;
+    private final String[] difficulties;
+    private final SplittableRandom master;
+    private final AtomicInteger[] accepted;
+    private final AtomicLong[] attempts;
+
+    private final LongAdder fillNanos = new LongAdder();
+    private final LongAdder removalNanos = new LongAdder();
+    private final LongAdder verifyNanos = new LongAdder();
+    private final LongAdder notUnique = new LongAdder();
+    private final LongAdder wrongRating = new LongAdder();
+    private final LongAdder duplicate = new LongAdder();
+    private final Set<GridCanonicalizer.Key> seen = ConcurrentHashMap.newKeySet();
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+    private final ThreadLocal<DancingLinksSolver> solver = ThreadLocal.withInitial(DancingLinksSolver::new);
+    private final ThreadLocal<DifficultyRater> rater = ThreadLocal.withInitial(DifficultyRater::new);
+    private final ThreadLocal<GridCanonicalizer> canonicalizer = ThreadLocal.withInitial(GridCanonicalizer::new);
+
+    public BatchGenerate(int threads, int count, String[] difficulties, long seed) {
+        this.threads = threads;
+        this.count = count;
+        this.difficulties = difficulties;
+        master = new SplittableRandom(seed);
+        accepted = new AtomicInteger[difficulties.length];
+        attempts = new AtomicLong[difficulties.length];
+        for (int i = 0; i < difficulties.length; i++) {
+            accepted[i] = new AtomicInteger();
+            attempts[i] = new AtomicLong();
+        }
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length < 2) {
+            System.err.println("Usage: BatchGenerate <output> <count> [difficulties] [threads] [seed]");
+            System.exit(2);
+        }
+        int count = Integer.parseInt(args[1]);
+        String[] difficulties = (args.length > 2 ? args[2] : "easy,medium,hard").toLowerCase(Locale.ROOT).split(",");
+        int threads = args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+        long seed = args.length > 4 ? Long.parseLong(args[4]) : System.nanoTime();
+        new BatchGenerate(threads, count, difficulties, seed).run(Path.of(args[0]));
+    }
+
+    /**
+     * Generate the puzzles into the output file and print a throughput summary.
+     * Throws the first failure of a worker, after the remaining workers stopped.
+     */
+    public void run(Path output) throws IOException, InterruptedException {
+        long start = System.nanoTime();
+        ExecutorService workers = Executors.newFixedThreadPool(threads);
+
+        try (BufferedWriter writer = Files.newBufferedWriter(output, StandardCharsets.US_ASCII)) {
+            writer.write("# puzzle,solution,difficulty,hardest,score,id");
+            writer.newLine();
+            for (int i = 0; i < threads; i++) {
+                workers.execute(() -> {
+                    try {
+                        work(writer);
+                    } catch (IOException | RuntimeException | Error ex) {
+                        failure.compareAndSet(null, ex);
+                    }
+                });
+            }
+            workers.shutdown();
+            workers.awaitTermination(Long.MAX_VALUE, TimeUnit.DAYS);
+        } finally {
+            workers.shutdownNow();
+        }
+
+        Throwable error = failure.get();
+        if (error instanceof IOException io) throw io;
+        if (error instanceof RuntimeException runtime) throw runtime;
+        if (error instanceof Error fatal) throw fatal;
+        printSummary(System.nanoTime() - start);
+    }
+
+    /** Generate puzzles for the difficulties still short of the count, taking turns, until done or the run fails. */
+    private void work(BufferedWriter writer) throws IOException {
+        for (int turn = 0; failure.get() == null; turn++) {
+            int level = nextLevel(turn);
+            if (level < 0) return;
+            String line = attempt(level);
+            if (line == null) continue;
+            if (accepted[level].incrementAndGet() > count) continue; // another worker filled it first
+            synchronized (writer) {
+                writer.write(line);
+                writer.newLine();
+            }
+        }
+    }
+
+    /** A difficulty that still needs puzzles and has attempts left, -1 when all are done. */
+    private int nextLevel(int turn) {
+        for (int i = 0; i < difficulties.length; i++) {
+            int level = (turn + i) % difficulties.length;
+            if (accepted[level].get() < count && attempts[level].get() < (long) count * MAX_ATTEMPTS_PER_PUZZLE) {
+                return level;
+            }
+        }
+        return -1;
+    }
+
+    /** Generate and verify one puzzle, returns its output line or null if it was rejected. */
+    private String attempt(int level) {
+        attempts[level].incrementAndGet();
+        long seed;
+        synchronized (master) {
+            seed = master.nextLong();
+        }
+        SudokuGenerator generator = new SudokuGenerator(BoardShape.STANDARD, difficulties[level],
+                removalFor(difficulties[level]), SudokuGenerator.FullGrid.BACKTRACKING, seed);
+        fillNanos.add(generator.getFillNanos());
+        removalNanos.add(generator.getRemovalNanos());
+
+        long t0 = System.nanoTime();
+        try {
+            int[][] puzzle = generator.getPuzzleGrid();
+            int[][] copy = new int[9][];
+            for (int r = 0; r < 9; r++) copy[r] = puzzle[r].clone();
+            if (solver.get().countSolutions(copy, 2) != 1) {
+                notUnique.increment();
+                return null;
+            }
+            DifficultyRater.Rating rating = rater.get().rate(puzzle);
+            if (rating == null || !rating.getDifficulty().equals(difficulties[level])) {
+                wrongRating.increment();
+                return null;
+            }
+            if (!seen.add(canonicalizer.get().key(puzzle))) {
+                duplicate.increment();
+                return null;
+            }
+            return format(generator, rating);
+        } finally {
+            verifyNanos.add(System.nanoTime() - t0);
+        }
+    }
+
+    /**
+     * Removal giving the best hit rate for the rating check: a few clues short
+     * of minimal the rater almost always finds singles, so medium and hard
+     * puzzles are taken down to minimal (about 16% then rate medium, 42% hard).
+     */
+    private static SudokuGenerator.Removal removalFor(String difficulty) {
+        return difficulty.equals("easy") ? SudokuGenerator.Removal.UNIQUE : SudokuGenerator.Removal.MINIMAL;
+    }
+
+    private String format(SudokuGenerator generator, DifficultyRater.Rating rating) {
+        StringBuilder sb = new StringBuilder(220);
+        for (int[] row : generator.getPuzzleGrid()) for (int cell : row) sb.append(cell == 0 ? '.' : (char) ('0' + cell));
+        sb.append(',');
+        for (int[] row : generator.getSolutionGrid()) for (int cell : row) sb.append((char) ('0' + cell));
+        sb.append(',').append(rating.getDifficulty())
+                .append(',').append(rating.getHardest())
+                .append(',').append(String.format(Locale.ROOT, "%.1f", rating.getScore()))
+                .append(',').append(generator.getPuzzleId());
+        return sb.toString();
+    }
+
+    private void printSummary(long elapsedNanos) {
+        long written = 0, tried = 0;
+        for (int i = 0; i < difficulties.length; i++) {
+            int done = Math.min(accepted[i].get(), count);
+            written += done;
+            tried += attempts[i].get();
+            System.out.printf("%-10s %d of %d puzzles in %d attempts%s%n", difficulties[i] + ":", done, count,
+                    attempts[i].get(), done < count ? " (gave up)" : "");
+        }
+        long rejected = notUnique.sum() + wrongRating.sum() + duplicate.sum();
+        double seconds = elapsedNanos / 1e9;
+        System.out.printf("Wall time:  %.2f s on %d threads%n", seconds, threads);
+        System.out.printf("Throughput: %.0f puzzles/sec (%.0f attempts/sec)%n",
+                written / Math.max(seconds, 1e-9), tried / Math.max(seconds, 1e-9));
+        System.out.printf("Rejected:   %.1f%% (not unique %d, wrong rating %d, duplicate %d)%n",
+                100.0 * rejected / Math.max(tried, 1), notUnique.sum(), wrongRating.sum(), duplicate.sum());
+        long fill = fillNanos.sum(), removal = removalNanos.sum(), verify = verifyNanos.sum();
+        double total = Math.max(fill + removal + verify, 1);
+        System.out.printf("Stages:     fill %.2f s (%.0f%%), removal %.2f s (%.0f%%), verification %.2f s (%.0f%%)%n",
+                fill / 1e9, 100 * fill / total, removal / 1e9, 100 * removal / total,
+                verify / 1e9, 100 * verify / total);
+    }
+}
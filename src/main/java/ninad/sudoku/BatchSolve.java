@@ -0,0 +1,281 @@
+package ninad.sudoku;
+
+import ninad.sudoku.logic.BoardShape;
+import ninad.sudoku.logic.DancingLinksSolver;
+import ninad.sudoku.logic.GridValidator;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Headless batch solver for puzzle corpora.
+ * <p>
+ * Reads one puzzle per line in the common 81-character format ('.' or '0'
+ * for empty cells, anything after the 81st character is ignored, blank
+ * lines and '#' comments are skipped), solves them on all cores and writes
+ * one CSV line per puzzle:
+ * <pre>line,status,solution,nodes,micros</pre>
+ * where status is unique, multiple, unsolvable or invalid. Invalid covers
+ * lines that are not puzzles and puzzles whose clues already conflict; those
+ * are never handed to the solver. Puzzles go to the workers in batches of
+ * {@value #BATCH}, whose clues are checked in one {@link GridValidator#validateAll}
+ * call. Lines are written as batches finish, so the output is not in input order.
+ * <p>
+ * The input is streamed through a buffered NIO reader and never held in
+ * memory; at most {@link #IN_FLIGHT_PER_THREAD} puzzles per worker are
+ * queued before the reader blocks. Latencies go into fixed-size per-worker
+ * histograms, so memory does not grow with the corpus either. If a worker
+ * fails, e.g. on a write error, reading stops and {@link #run} throws the
+ * first failure, so an incomplete output never passes for a finished run.
+ * <p>
+ * Usage: {@code java -cp sudoku-app.jar ninad.sudoku.BatchSolve <input> <output> [threads]}
+ */
+public class BatchSolve {
+
+    private static final int IN_FLIGHT_PER_THREAD = 256;
+    private static final int BATCH = 64;
+    private static final int CELLS = 81;
+
+    private final int threads;
+    private final AtomicLong solved = new AtomicLong();
+    private final AtomicLong ambiguous = new AtomicLong();
+    private final AtomicLong unsolvable = new AtomicLong();
+    private final AtomicLong invalid = new AtomicLong();
+    private final AtomicLong conflicting = new AtomicLong();
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+    /** Per-worker latency histograms, merged for the percentiles at the end. */
+    private final List<LatencyHistogram> histograms = new ArrayList<>();
+    private final ThreadLocal<LatencyHistogram> histogram = ThreadLocal.withInitial(this::newHistogram);
+    private final ThreadLocal<DancingLinksSolver> solver = ThreadLocal.withInitial(DancingLinksSolver::new);
+
+    public BatchSolve(int threads) {
+        this.threads = threads;
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length < 2) {
+            System.err.println("Usage: BatchSolve <input> <output> [threads]");
+            System.exit(2);
+        }
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        new BatchSolve(threads).run(Path.of(args[0]), Path.of(args[1]));
+    }
+
+    /**
+     * Solve every puzzle of the input file and print a throughput summary.
+     * Throws the first failure of a worker, after the remaining workers stopped.
+     */
+    public void run(Path input, Path output) throws IOException, InterruptedException {
+        long start = System.nanoTime();
+        ExecutorService workers = Executors.newFixedThreadPool(threads);
+        Semaphore inFlight = new Semaphore(threads * IN_FLIGHT_PER_THREAD);
+
+        try (BufferedReader reader = Files.newBufferedReader(input, StandardCharsets.US_ASCII);
+             BufferedWriter writer = Files.newBufferedWriter(output, StandardCharsets.US_ASCII)) {
+            writer.write("line,status,solution,nodes,micros");
+            writer.newLine();
+
+            String line;
+            long lineNo = 0;
+            long[] numbers = new long[BATCH];
+            String[] texts = new String[BATCH];
+            int count = 0;
+            while (failure.get() == null) {
+                line = reader.readLine();
+                if (line != null) {
+                    lineNo++;
+                    if (line.isBlank() || line.startsWith("#")) continue;
+                    numbers[count] = lineNo;
+                    texts[count++] = line;
+                    if (count < BATCH) continue;
+                } else if (count == 0) {
+                    break;
+                }
+                inFlight.acquire(count); // backpressure: wait for the workers to catch up
+                final long[] batchNumbers = numbers;
+                final String[] batchTexts = texts;
+                final int batchCount = count;
+                workers.execute(() -> {
+                    try {
+                        if (failure.get() != null) return; // the run is failing, skip the rest
+                        String[] results = solveBatch(batchNumbers, batchTexts, batchCount);
+                        synchronized (writer) {
+                            for (String result : results) {
+                                writer.write(result);
+                                writer.newLine();
+                            }
+                        }
+                    } catch (IOException | RuntimeException | Error ex) {
+                        failure.compareAndSet(null, ex);
+                    } finally {
+                        inFlight.release(batchCount);
+                    }
+                });
+                if (line == null) break;
+                numbers = new long[BATCH];
+                texts = new String[BATCH];
+                count = 0;
+            }
+            workers.shutdown();
+            workers.awaitTermination(Long.MAX_VALUE, TimeUnit.DAYS);
+        } finally {
+            workers.shutdownNow();
+        }
+
+        Throwable error = failure.get();
+        if (error instanceof IOException io) throw io;
+        if (error instanceof RuntimeException runtime) throw runtime;
+        if (error instanceof Error fatal) throw fatal;
+        printSummary(System.nanoTime() - start);
+    }
+
+    /** Parse a batch of lines, check all their clues at once, then solve the valid puzzles. */
+    private String[] solveBatch(long[] lineNos, String[] lines, int count) {
+        int[][][] grids = new int[count][][];
+        byte[] packed = new byte[count * CELLS];
+        for (int i = 0; i < count; i++) {
+            grids[i] = parse(lines[i]);
+            if (grids[i] != null) GridValidator.pack(grids[i], packed, i * CELLS); // a line that is no puzzle stays empty
+        }
+        boolean[] valid = new boolean[count];
+        GridValidator.validateAll(packed, BoardShape.STANDARD, valid);
+
+        String[] results = new String[count];
+        for (int i = 0; i < count; i++) {
+            if (grids[i] == null) {
+                invalid.incrementAndGet();
+                results[i] = lineNos[i] + ",invalid,,0,0";
+            } else if (!valid[i]) {
+                invalid.incrementAndGet();
+                conflicting.incrementAndGet();
+                results[i] = lineNos[i] + ",invalid,,0,0";
+            } else {
+                results[i] = solveLine(lineNos[i], grids[i]);
+            }
+        }
+        return results;
+    }
+
+    private String solveLine(long lineNo, int[][] grid) {
+        long t0 = System.nanoTime();
+        DancingLinksSolver dlx = solver.get();
+        int count = dlx.solveAndCount(grid, 2);
+        long elapsed = System.nanoTime() - t0;
+        histogram.get().add(elapsed);
+
+        String status;
+        switch (count) {
+            case 0 -> { status = "unsolvable"; unsolvable.incrementAndGet(); }
+            case 1 -> { status = "unique"; solved.incrementAndGet(); }
+            default -> { status = "multiple"; ambiguous.incrementAndGet(); }
+        }
+        StringBuilder sb = new StringBuilder(128);
+        sb.append(lineNo).append(',').append(status).append(',');
+        if (count > 0) {
+            for (int[] row : grid) for (int cell : row) sb.append((char) ('0' + cell));
+        }
+        sb.append(',').append(dlx.getNodeCount()).append(',').append(elapsed / 1_000);
+        return sb.toString();
+    }
+
+    /** Parse the first 81 characters of a line, returns null if it is not a puzzle. */
+    static int[][] parse(String line) {
+        if (line.length() < CELLS) return null;
+        int[][] grid = new int[9][9];
+        for (int i = 0; i < CELLS; i++) {
+            char ch = line.charAt(i);
+            if (ch >= '1' && ch <= '9') grid[i / 9][i % 9] = ch - '0';
+            else if (ch != '.' && ch != '0') return null;
+        }
+        return grid;
+    }
+
+    private void printSummary(long elapsedNanos) {
+        LatencyHistogram latencies = mergeHistograms();
+        long total = solved.get() + ambiguous.get() + unsolvable.get() + invalid.get();
+        double seconds = elapsedNanos / 1e9;
+        System.out.printf("Puzzles:     %d (unique %d, multiple %d, unsolvable %d, invalid %d of which %d conflicting)%n",
+                total, solved.get(), ambiguous.get(), unsolvable.get(), invalid.get(), conflicting.get());
+        System.out.printf("Wall time:   %.2f s on %d threads%n", seconds, threads);
+        System.out.printf("Throughput:  %.0f puzzles/sec%n", total / Math.max(seconds, 1e-9));
+        if (latencies.count > 0) {
+            System.out.printf("Latency:     p50 %.1f us, p99 %.1f us, max %.1f us%n",
+                    latencies.percentile(0.50) / 1e3, latencies.percentile(0.99) / 1e3, latencies.max / 1e3);
+        }
+    }
+
+    private LatencyHistogram mergeHistograms() {
+        LatencyHistogram all = new LatencyHistogram();
+        synchronized (histograms) {
+            for (LatencyHistogram h : histograms) all.merge(h);
+        }
+        return all;
+    }
+
+    private LatencyHistogram newHistogram() {
+        LatencyHistogram h = new LatencyHistogram();
+        synchronized (histograms) {
+            histograms.add(h);
+        }
+        return h;
+    }
+
+    /**
+     * Log-scale histogram of nanosecond latencies owned by one worker thread:
+     * {@value #SUB_BUCKETS} buckets per power of two, so a percentile is
+     * within about 12% of the true value; the maximum is kept exactly.
+     */
+    static final class LatencyHistogram {
+        private static final int SUB_BITS = 3, SUB_BUCKETS = 1 << SUB_BITS;
+        final long[] counts = new long[64 * SUB_BUCKETS];
+        long count, max;
+
+        void add(long nanos) {
+            long value = Math.max(nanos, 1);
+            counts[bucket(value)]++;
+            count++;
+            max = Math.max(max, value);
+        }
+
+        void merge(LatencyHistogram other) {
+            for (int i = 0; i < counts.length; i++) counts[i] += other.counts[i];
+            count += other.count;
+            max = Math.max(max, other.max);
+        }
+
+        /** Lower bound of the bucket holding the p-quantile, capped at the maximum. */
+        long percentile(double p) {
+            long rank = Math.max(1, (long) Math.ceil(p * count));
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) return Math.min(lowerBound(i), max);
+            }
+            return max;
+        }
+
+        private static int bucket(long value) {
+            int exponent = 63 - Long.numberOfLeadingZeros(value);
+            if (exponent < SUB_BITS) return (int) value; // small values get exact buckets
+            return exponent * SUB_BUCKETS + (int) ((value >>> (exponent - SUB_BITS)) & (SUB_BUCKETS - 1));
+        }
+
+        private static long lowerBound(int bucket) {
+            int exponent = bucket / SUB_BUCKETS;
+            if (exponent < SUB_BITS) return bucket;
+            return (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << (exponent - SUB_BITS);
+        }
+    }
+}
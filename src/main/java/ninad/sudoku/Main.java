@@ -4,6 +4,9 @@ import javafx.application.Application;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Scene;
 import javafx.stage.Stage;
+import ninad.sudoku.logic.PuzzlePool;
+import ninad.sudoku.logic.SaveStore;
+import ninad.sudoku.ui.GameScreenController;
 import ninad.sudoku.ui.GiveUpScreenController;
 import ninad.sudoku.ui.SolutionScreenController;
 import ninad.sudoku.ui.WinScreenController;
@@ -13,17 +16,22 @@ import java.io.IOException;
 public class Main extends Application {
 
     private static Stage primaryStage;
+    private static final PuzzlePool puzzlePool = new PuzzlePool();
+    private static final SaveStore saveStore = new SaveStore(SaveStore.defaultDirectory());
+    private static GameScreenController activeGame;
 
     @Override
     public void start(Stage stage) throws Exception {
         primaryStage = stage;
+        puzzlePool.warmUp("easy"); // the only difficulty a new game asks for; fills while the main menu is shown
         showMainMenu();
         stage.setTitle("Sudoku Master");
         stage.show();
     }
 
-    /** Show the main menu screen */
+    /** Show the main menu screen; a game being left is saved first */
     public static void showMainMenu() throws IOException {
+        saveActiveGame();
         FXMLLoader loader = new FXMLLoader(Main.class.getResource("/ninad/sudoku/ui/MainScreen.fxml"));
         Scene scene = new Scene(loader.load());
         primaryStage.setScene(scene);
@@ -33,6 +41,8 @@ public class Main extends Application {
     public static void showGameScreen() throws IOException {
         FXMLLoader loader = new FXMLLoader(Main.class.getResource("/ninad/sudoku/ui/GameScreen.fxml"));
         Scene scene = new Scene(loader.load());
+        GameScreenController controller = loader.getController();
+        controller.startNewGame();
         primaryStage.setScene(scene);
     }
 
@@ -74,6 +84,34 @@ public class Main extends Application {
         return primaryStage;
     }
 
+    /** Pre-generated puzzles for the game screen */
+    public static PuzzlePool getPuzzlePool() {
+        return puzzlePool;
+    }
+
+    /** Saved games, written in the background */
+    public static SaveStore getSaveStore() {
+        return saveStore;
+    }
+
+    /** Game to save when the player leaves it or closes the window; null when none is running */
+    public static void setActiveGame(GameScreenController game) {
+        activeGame = game;
+    }
+
+    private static void saveActiveGame() {
+        if (activeGame == null) return;
+        activeGame.save();
+        activeGame = null;
+    }
+
+    @Override
+    public void stop() {
+        saveActiveGame();
+        saveStore.close(); // waits for pending saves, which the daemon writer would otherwise abandon
+        puzzlePool.close();
+    }
+
     public static void main(String[] args) {
         launch();
     }
@@ -0,0 +1,75 @@
+package ninad.sudoku.logic;
+
+/**
+ * Classic row-major backtracking: fill the first empty cell with each
+ * digit its row, column and box still allow, lowest first.
+ * This is the algorithm behind {@link SudokuSolver#solve}.
+ */
+public class BacktrackingSolver implements Solver {
+
+    private long nodes;
+    private volatile boolean cancelled;
+    private int solutionCount;
+    private int limit;
+
+    @Override
+    public boolean solve(int[][] grid) {
+        SudokuBoard board = SudokuBoard.forGrid(grid);
+        if (!board.load(grid)) return false; // conflicting clues
+        if (run(board, 1) == 0) return false;
+        board.toGrid(grid);
+        return true;
+    }
+
+    @Override
+    public int countSolutions(int[][] grid, int limit) {
+        SudokuBoard board = SudokuBoard.forGrid(grid);
+        if (!board.load(grid)) return 0;
+        return run(board, limit);
+    }
+
+    /** Stop the running search; this solver stays cancelled, so later calls find nothing. Thread-safe. */
+    @Override
+    public void cancel() {
+        cancelled = true;
+    }
+
+    @Override
+    public long getNodeCount() {
+        return nodes;
+    }
+
+    private int run(SudokuBoard board, int limit) {
+        nodes = 0;
+        solutionCount = 0;
+        this.limit = limit;
+        if (limit > 0) search(board, 0);
+        return solutionCount;
+    }
+
+    /**
+     * Backtrack over the board, starting the empty-cell scan at {@code from}.
+     * Returns true once the limit is reached, leaving the last solution on the board.
+     */
+    private boolean search(SudokuBoard board, int from) {
+        if (cancelled) return true; // unwind as if the limit was reached
+        nodes++;
+        // find first empty cell
+        int cells = board.shape().cells();
+        int cell = from;
+        while (cell < cells && board.get(cell) != 0) cell++;
+        // no empty cells left → solved
+        if (cell == cells) return ++solutionCount >= limit;
+
+        // try every digit not used by a peer, lowest first
+        for (int mask = board.candidates(cell); mask != 0; mask &= mask - 1) {
+            board.place(cell, SudokuBoard.lowestDigit(mask));
+            if (search(board, cell + 1)) {
+                return true; // limit reached further down
+            }
+            board.clear(cell); // backtrack
+        }
+        // if no number works, trigger backtrack
+        return false;
+    }
+}
@@ -0,0 +1,194 @@
+package ninad.sudoku.logic;
+
+import java.nio.ByteBuffer;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Dimensions and lookup tables of a Sudoku variant with boxRows x boxCols boxes,
+ * e.g. 3x3 for the classic 9x9 board, 2x3 for 6x6 or 4x4 for 16x16.
+ * Shapes are immutable and cached, so every board of one size shares the
+ * same row/column/box, peer and unit tables.
+ * <p>
+ * Digits are kept as bits of an int mask, which allows up to 30 digits (25x25 fits).
+ */
+public final class BoardShape {
+
+    /** Largest supported side length; digit masks must fit in an int. */
+    public static final int MAX_SIZE = 30;
+
+    private static final Map<Long, BoardShape> CACHE = new ConcurrentHashMap<>();
+
+    public static final BoardShape STANDARD = of(3, 3);
+
+    private final int boxRows, boxCols, size, cells;
+    private final int allDigits;
+    private final int[] rowOf, colOf, boxOf;
+    private final int[][] peers;
+    private final int[][] units;
+
+    private BoardShape(int boxRows, int boxCols) {
+        this.boxRows = boxRows;
+        this.boxCols = boxCols;
+        this.size = boxRows * boxCols;
+        this.cells = size * size;
+        this.allDigits = (1 << size) - 1;
+
+        rowOf = new int[cells];
+        colOf = new int[cells];
+        boxOf = new int[cells];
+        for (int cell = 0; cell < cells; cell++) {
+            rowOf[cell] = cell / size;
+            colOf[cell] = cell % size;
+            boxOf[cell] = (rowOf[cell] / boxRows) * boxRows + colOf[cell] / boxCols;
+        }
+
+        units = new int[3 * size][size];
+        int[] unitFill = new int[3 * size];
+        for (int cell = 0; cell < cells; cell++) {
+            int[] cellUnits = {rowOf[cell], size + colOf[cell], 2 * size + boxOf[cell]};
+            for (int unit : cellUnits) units[unit][unitFill[unit]++] = cell;
+        }
+
+        // row + column + rest of the box: (size-1) + (size-1) + (size - boxRows - boxCols + 1)
+        peers = new int[cells][3 * size - boxRows - boxCols - 1];
+        for (int cell = 0; cell < cells; cell++) {
+            int n = 0;
+            for (int other = 0; other < cells; other++) {
+                if (other != cell && (rowOf[other] == rowOf[cell]
+                        || colOf[other] == colOf[cell] || boxOf[other] == boxOf[cell])) {
+                    peers[cell][n++] = other;
+                }
+            }
+        }
+    }
+
+    /** Shape with boxes of boxRows x boxCols cells. */
+    public static BoardShape of(int boxRows, int boxCols) {
+        if (boxRows < 1 || boxCols < 1 || boxRows * boxCols > MAX_SIZE) {
+            throw new IllegalArgumentException("Unsupported box size " + boxRows + "x" + boxCols);
+        }
+        return CACHE.computeIfAbsent(((long) boxRows << 32) | boxCols, k -> new BoardShape(boxRows, boxCols));
+    }
+
+    /**
+     * Shape for a side length: square boxes when possible (9 -> 3x3, 16 -> 4x4),
+     * otherwise the squarest split with fewer rows than columns (6 -> 2x3, 12 -> 3x4).
+     */
+    public static BoardShape forSize(int size) {
+        if (size == 9) return STANDARD;
+        for (int boxRows = (int) Math.sqrt(size); boxRows > 1; boxRows--) {
+            if (size % boxRows == 0) return of(boxRows, size / boxRows);
+        }
+        throw new IllegalArgumentException("No box layout for a " + size + "x" + size + " board");
+    }
+
+    /** Shape matching a square grid. */
+    public static BoardShape forGrid(int[][] grid) {
+        return forSize(grid.length);
+    }
+
+    public int boxRows() {
+        return boxRows;
+    }
+
+    public int boxCols() {
+        return boxCols;
+    }
+
+    /** Side length, which is also the number of digits. */
+    public int size() {
+        return size;
+    }
+
+    public int cells() {
+        return cells;
+    }
+
+    /** Number of units: rows, then columns, then boxes. */
+    public int unitCount() {
+        return 3 * size;
+    }
+
+    /** Mask with one bit set for each digit. */
+    public int allDigits() {
+        return allDigits;
+    }
+
+    public int rowOf(int cell) {
+        return rowOf[cell];
+    }
+
+    public int colOf(int cell) {
+        return colOf[cell];
+    }
+
+    public int boxOf(int cell) {
+        return boxOf[cell];
+    }
+
+    public int cellOf(int row, int col) {
+        return row * size + col;
+    }
+
+    /** Cells sharing a row, column or box with the cell. Do not modify. */
+    int[] peers(int cell) {
+        return peers[cell];
+    }
+
+    /** Cells of a unit: rows first, then columns, then boxes. Do not modify. */
+    int[] unit(int unit) {
+        return units[unit];
+    }
+
+    /**
+     * Fewest clues a puzzle of this shape can have and still be unique:
+     * the proven minimum for 4x4, 6x6 and 9x9; otherwise size - 1, because
+     * two digits that never appear as clues could always be swapped.
+     */
+    public int minimumClues() {
+        return switch (size) {
+            case 4 -> 4;
+            case 6 -> 8;
+            case 9 -> 17;
+            default -> size - 1;
+        };
+    }
+
+    /** Empty grid of this shape. */
+    public int[][] newGrid() {
+        return new int[size][size];
+    }
+
+    /** Bytes a grid takes at 4 bits per cell. */
+    int packedBytes() {
+        return (cells + 1) / 2;
+    }
+
+    /**
+     * Write the grid at 4 bits per cell, two cells per byte with the first
+     * one in the high nibble, which is the layout of puzzle banks and saves.
+     */
+    void pack(int[][] grid, ByteBuffer out) {
+        for (int cell = 0; cell < cells; cell += 2) {
+            int high = grid[cell / size][cell % size];
+            int low = cell + 1 < cells ? grid[(cell + 1) / size][(cell + 1) % size] : 0;
+            out.put((byte) (high << 4 | low));
+        }
+    }
+
+    /** Read a grid written by {@link #pack} at an absolute offset; the buffer's position is left alone. */
+    int[][] unpack(ByteBuffer in, int offset) {
+        int[][] grid = newGrid();
+        for (int cell = 0; cell < cells; cell++) {
+            int packed = in.get(offset + cell / 2);
+            grid[cell / size][cell % size] = (cell & 1) == 0 ? (packed >> 4) & 0xF : packed & 0xF;
+        }
+        return grid;
+    }
+
+    @Override
+    public String toString() {
+        return size + "x" + size + " (" + boxRows + "x" + boxCols + " boxes)";
+    }
+}
@@ -0,0 +1,222 @@
+package ninad.sudoku.logic;
+
+/**
+ * Exact-cover solver using Knuth's Algorithm X with Dancing Links.
+ * <p>
+ * Every candidate (cell, digit) is a matrix row covering four constraints:
+ * the cell is filled, and the digit appears once in its row, column and box.
+ * The links are stored in flat int arrays and built once per board shape;
+ * every call covers the clues, searches, and uncovers again, so the
+ * structure is reused between puzzles of the same size. Not thread-safe.
+ */
+public class DancingLinksSolver implements Solver {
+
+    private static final int ROOT = 0;                 // header of the column list
+
+    // matrix for the current shape: 4 * cells constraint columns, cells * size candidate rows.
+    // node 0 is the root, nodes 1..columns are column headers, the rest are row nodes
+    private BoardShape shape;
+    private int size, cells;
+    private int[] left, right, up, down, column, rowOf;
+    private int[] columnSize;
+    /** First node of every candidate row. */
+    private int[] rowStart;
+
+    private int[] chosen;
+    private int[] solution;
+    private int solutionCount;
+    private int limit;
+    private long nodes;
+    private volatile boolean cancelled;
+
+    /** Solver for 9x9 grids; other sizes rebuild the matrix on first use. */
+    public DancingLinksSolver() {
+        build(BoardShape.STANDARD);
+    }
+
+    private void build(BoardShape shape) {
+        this.shape = shape;
+        size = shape.size();
+        cells = shape.cells();
+        int columns = 4 * cells;
+        int rows = cells * size;
+        int nodeCount = 1 + columns + 4 * rows;
+        left = new int[nodeCount];
+        right = new int[nodeCount];
+        up = new int[nodeCount];
+        down = new int[nodeCount];
+        column = new int[nodeCount];
+        rowOf = new int[nodeCount];
+        columnSize = new int[columns + 1];
+        rowStart = new int[rows];
+        chosen = new int[cells];
+        solution = new int[cells];
+
+        for (int c = 0; c <= columns; c++) {
+            left[c] = c == 0 ? columns : c - 1;
+            right[c] = c == columns ? 0 : c + 1;
+            up[c] = c;
+            down[c] = c;
+            column[c] = c;
+        }
+
+        int node = columns + 1;
+        for (int cell = 0; cell < cells; cell++) {
+            int row = shape.rowOf(cell), col = shape.colOf(cell), box = shape.boxOf(cell);
+            for (int d = 0; d < size; d++) {
+                int candidate = cell * size + d;
+                int[] cols = {
+                        1 + cell,
+                        1 + cells + row * size + d,
+                        1 + 2 * cells + col * size + d,
+                        1 + 3 * cells + box * size + d
+                };
+                rowStart[candidate] = node;
+                for (int i = 0; i < 4; i++) {
+                    int c = cols[i];
+                    column[node] = c;
+                    rowOf[node] = candidate;
+                    // append at the bottom of column c
+                    up[node] = up[c];
+                    down[node] = c;
+                    down[up[c]] = node;
+                    up[c] = node;
+                    columnSize[c]++;
+                    // link into the row ring
+                    left[node] = i == 0 ? node + 3 : node - 1;
+                    right[node] = i == 3 ? node - 3 : node + 1;
+                    node++;
+                }
+            }
+        }
+    }
+
+    @Override
+    public boolean solve(int[][] grid) {
+        return solveAndCount(grid, 1) > 0;
+    }
+
+    /**
+     * Count solutions up to {@code limit} and write the first one found into the grid,
+     * so a uniqueness check and the solution come out of a single search.
+     */
+    public int solveAndCount(int[][] grid, int limit) {
+        int count = run(grid, limit);
+        if (count == 0) return 0;
+        for (int cell = 0; cell < cells; cell++) {
+            grid[cell / size][cell % size] = solution[cell];
+        }
+        return count;
+    }
+
+    /** Stop the running search; this solver stays cancelled, so later calls find nothing. Thread-safe. */
+    @Override
+    public void cancel() {
+        cancelled = true;
+    }
+
+    @Override
+    public long getNodeCount() {
+        return nodes;
+    }
+
+    @Override
+    public int countSolutions(int[][] grid, int limit) {
+        return run(grid, limit);
+    }
+
+    private int run(int[][] grid, int limit) {
+        BoardShape gridShape = BoardShape.forGrid(grid);
+        if (gridShape != shape) build(gridShape);
+        SudokuBoard board = new SudokuBoard(shape);
+        if (!board.load(grid)) return 0;
+
+        // select the rows of the given clues
+        int clues = 0;
+        for (int cell = 0; cell < cells; cell++) {
+            int num = board.get(cell);
+            if (num == 0) continue;
+            int node = rowStart[cell * size + num - 1];
+            chosen[clues++] = node;
+            coverRow(node);
+        }
+
+        this.limit = limit;
+        solutionCount = 0;
+        nodes = 0;
+        search(clues);
+
+        // restore the matrix for the next call, in reverse order
+        for (int i = clues - 1; i >= 0; i--) uncoverRow(chosen[i]);
+        return solutionCount;
+    }
+
+    private void search(int depth) {
+        if (cancelled) return;
+        nodes++;
+        if (right[ROOT] == ROOT) {
+            if (solutionCount == 0) {
+                for (int i = 0; i < depth; i++) {
+                    int candidate = rowOf[chosen[i]];
+                    solution[candidate / size] = candidate % size + 1;
+                }
+            }
+            solutionCount++;
+            return;
+        }
+
+        // choose the column with the fewest remaining rows
+        int best = right[ROOT];
+        for (int c = right[best]; c != ROOT && columnSize[best] > 1; c = right[c]) {
+            if (columnSize[c] < columnSize[best]) best = c;
+        }
+        if (columnSize[best] == 0) return; // dead end
+
+        cover(best);
+        for (int node = down[best]; node != best && solutionCount < limit && !cancelled; node = down[node]) {
+            chosen[depth] = node;
+            for (int j = right[node]; j != node; j = right[j]) cover(column[j]);
+            search(depth + 1);
+            for (int j = left[node]; j != node; j = left[j]) uncover(column[j]);
+        }
+        uncover(best);
+    }
+
+    private void coverRow(int node) {
+        int j = node;
+        do { cover(column[j]); j = right[j]; } while (j != node);
+    }
+
+    private void uncoverRow(int node) {
+        int j = left[node];
+        while (true) {
+            uncover(column[j]);
+            if (j == node) break;
+            j = left[j];
+        }
+    }
+
+    private void cover(int c) {
+        right[left[c]] = right[c];
+        left[right[c]] = left[c];
+        for (int i = down[c]; i != c; i = down[i]) {
+            for (int j = right[i]; j != i; j = right[j]) {
+                down[up[j]] = down[j];
+                up[down[j]] = up[j];
+                columnSize[column[j]]--;
+            }
+        }
+    }
+
+    private void uncover(int c) {
+        for (int i = up[c]; i != c; i = up[i]) {
+            for (int j = left[i]; j != i; j = left[j]) {
+                columnSize[column[j]]++;
+                down[up[j]] = j;
+                up[down[j]] = j;
+            }
+        }
+        right[left[c]] = c;
+        left[right[c]] = c;
+    }
+}
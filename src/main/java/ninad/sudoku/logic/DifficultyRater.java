@@ -0,0 +1,606 @@
+package ninad.sudoku.logic;
+
+import java.util.Arrays;
+
+/**
+ * Grades a puzzle by solving it the way a person would: it always applies the
+ * easiest technique that makes progress and remembers the hardest one it needed.
+ * <p>
+ * Techniques, easiest first: hidden and naked singles, pointing and claiming,
+ * naked/hidden pairs and triples, X-Wing and Swordfish, XY-Wing, single-digit
+ * chains (simple colouring) and XY-chains. If none of them applies before the
+ * grid is full the puzzle needs guessing. The numeric rating is that of the
+ * hardest technique, roughly on the Sudoku Explainer scale (1.5 .. 10).
+ * <p>
+ * The rater works on candidate masks kept per cell and reuses its arrays
+ * between calls, so one instance rates thousands of puzzles per second.
+ * Not thread-safe: use one rater per thread. The puzzle is expected to
+ * have a unique solution; uniqueness is not checked here.
+ */
+public class DifficultyRater {
+
+    public enum Technique {
+        HIDDEN_SINGLE(1.5, "easy"),
+        NAKED_SINGLE(2.3, "easy"),
+        POINTING(2.6, "medium"),
+        CLAIMING(2.8, "medium"),
+        NAKED_PAIR(3.0, "medium"),
+        X_WING(3.2, "hard"),
+        HIDDEN_PAIR(3.4, "medium"),
+        NAKED_TRIPLE(3.6, "medium"),
+        SWORDFISH(3.8, "hard"),
+        HIDDEN_TRIPLE(4.0, "medium"),
+        XY_WING(4.2, "hard"),
+        X_CHAIN(4.5, "hard"),
+        XY_CHAIN(5.0, "hard"),
+        /** No technique above makes progress; the puzzle needs trial and error. */
+        GUESS(10.0, "hard");
+
+        private final double rating;
+        private final String difficulty;
+
+        Technique(double rating, String difficulty) {
+            this.rating = rating;
+            this.difficulty = difficulty;
+        }
+
+        public double getRating() {
+            return rating;
+        }
+
+        /** "easy", "medium" or "hard", as used by {@link SudokuGenerator}. */
+        public String getDifficulty() {
+            return difficulty;
+        }
+    }
+
+    /** Outcome of {@link #rate}. */
+    public static final class Rating {
+        private final Technique hardest;
+        private final int[] uses;
+
+        private Rating(Technique hardest, int[] uses) {
+            this.hardest = hardest;
+            this.uses = uses;
+        }
+
+        /** Hardest technique needed, null if the grid was already full. */
+        public Technique getHardest() {
+            return hardest;
+        }
+
+        /** Rating of the hardest technique, 0 for a full grid. */
+        public double getScore() {
+            return hardest == null ? 0 : hardest.getRating();
+        }
+
+        public String getDifficulty() {
+            return hardest == null ? "easy" : hardest.getDifficulty();
+        }
+
+        /** True if the puzzle was solved without guessing. */
+        public boolean isSolvedLogically() {
+            return hardest != Technique.GUESS;
+        }
+
+        /** How many times a technique made progress. */
+        public int getUses(Technique technique) {
+            return uses[technique.ordinal()];
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%.1f (%s)", getScore(), hardest);
+        }
+    }
+
+    private static final Technique[] TECHNIQUES = Technique.values();
+
+    private BoardShape shape;
+    private SudokuBoard board;
+    private int[] cand;          // candidate mask of each empty cell, 0 for filled cells
+    private int remaining;       // empty cells
+    private boolean broken;      // a cell or unit ran out of candidates
+
+    // first placement since firstPlacement() started, for hints
+    private int firstCell, firstDigit, firstUnit;
+    private int placingUnit;     // unit of the hidden single being placed, -1 for a naked single
+
+    // scratch buffers
+    private int[] lineMasks, digitPlaces;
+    private int[] linkCount, colour, component, queue, seen;
+    private int[][] links;
+    private int seenStamp;
+
+    /** Rate a puzzle; returns null if the clues conflict. */
+    public Rating rate(int[][] grid) {
+        prepare(BoardShape.forGrid(grid));
+        if (!board.load(grid)) return null;
+        start();
+
+        int[] uses = new int[TECHNIQUES.length];
+        Technique hardest = null;
+        while (remaining > 0) {
+            Technique technique = step();
+            uses[technique.ordinal()]++;
+            if (hardest == null || technique.getRating() > hardest.getRating()) hardest = technique;
+            if (technique == Technique.GUESS) break;
+        }
+        return new Rating(hardest, uses);
+    }
+
+    /**
+     * Apply techniques to a position until the first digit is placed; used for hints.
+     * Returns the hardest technique needed up to that placement, which is then
+     * available from {@link #firstCell()}, {@link #firstDigit()} and
+     * {@link #firstUnit()}, or null if the position is full, broken or needs guessing.
+     * The position itself is not changed.
+     */
+    Technique firstPlacement(SudokuBoard position) {
+        prepare(position.shape());
+        board.reset();
+        for (int cell = 0; cell < cand.length; cell++) {
+            if (position.get(cell) != 0) board.place(cell, position.get(cell));
+        }
+        start();
+        firstCell = -1;
+        Technique hardest = null;
+        while (remaining > 0 && firstCell < 0) {
+            Technique technique = step();
+            if (technique == Technique.GUESS) return null;
+            if (hardest == null || technique.getRating() > hardest.getRating()) hardest = technique;
+        }
+        return firstCell < 0 ? null : hardest;
+    }
+
+    int firstCell() {
+        return firstCell;
+    }
+
+    int firstDigit() {
+        return firstDigit;
+    }
+
+    /** Unit in which the first digit was the only place left, -1 if it was the cell's only candidate. */
+    int firstUnit() {
+        return firstUnit;
+    }
+
+    /** Candidates from the loaded board. */
+    private void start() {
+        remaining = 0;
+        broken = false;
+        for (int cell = 0; cell < cand.length; cell++) {
+            cand[cell] = board.get(cell) == 0 ? board.candidates(cell) : 0;
+            if (board.get(cell) == 0) remaining++;
+        }
+    }
+
+    private void prepare(BoardShape shape) {
+        if (this.shape == shape) return;
+        this.shape = shape;
+        int cells = shape.cells(), size = shape.size();
+        board = new SudokuBoard(shape);
+        cand = new int[cells];
+        lineMasks = new int[size];
+        digitPlaces = new int[size];
+        links = new int[cells][3];
+        linkCount = new int[cells];
+        colour = new int[cells];
+        component = new int[cells];
+        queue = new int[cells * size];
+        seen = new int[cells * size];
+    }
+
+    /** Apply the easiest technique that makes progress. */
+    private Technique step() {
+        if (!broken) {
+            if (hiddenSingles()) return Technique.HIDDEN_SINGLE;
+            if (nakedSingles()) return Technique.NAKED_SINGLE;
+            if (pointing()) return Technique.POINTING;
+            if (claiming()) return Technique.CLAIMING;
+            if (nakedSubset(2)) return Technique.NAKED_PAIR;
+            if (fish(2)) return Technique.X_WING;
+            if (hiddenSubset(2)) return Technique.HIDDEN_PAIR;
+            if (nakedSubset(3)) return Technique.NAKED_TRIPLE;
+            if (fish(3)) return Technique.SWORDFISH;
+            if (hiddenSubset(3)) return Technique.HIDDEN_TRIPLE;
+            if (xyWing()) return Technique.XY_WING;
+            if (simpleColouring()) return Technique.X_CHAIN;
+            if (xyChain()) return Technique.XY_CHAIN;
+        }
+        return Technique.GUESS;
+    }
+
+    // ---- singles ----
+
+    private boolean hiddenSingles() {
+        boolean progress = false;
+        for (int unit = 0; unit < shape.unitCount(); unit++) {
+            int[] unitCells = shape.unit(unit);
+            int once = 0, twice = 0, placed = 0;
+            for (int cell : unitCells) {
+                if (board.get(cell) != 0) {
+                    placed |= SudokuBoard.bit(board.get(cell));
+                } else {
+                    twice |= once & cand[cell];
+                    once |= cand[cell];
+                }
+            }
+            if ((once | placed) != shape.allDigits()) {
+                broken = true; // a digit has no place left in this unit
+                return progress;
+            }
+            for (int single = once & ~twice; single != 0; single &= single - 1) {
+                int bit = single & -single;
+                for (int cell : unitCells) {
+                    if ((cand[cell] & bit) != 0) {
+                        placingUnit = unit;
+                        place(cell, SudokuBoard.lowestDigit(bit));
+                        progress = true;
+                        break;
+                    }
+                }
+            }
+        }
+        return progress;
+    }
+
+    private boolean nakedSingles() {
+        boolean progress = false;
+        for (int cell = 0; cell < cand.length; cell++) {
+            int mask = cand[cell];
+            if (mask != 0 && (mask & (mask - 1)) == 0) {
+                placingUnit = -1;
+                place(cell, SudokuBoard.lowestDigit(mask));
+                progress = true;
+            }
+        }
+        return progress;
+    }
+
+    private void place(int cell, int num) {
+        if (firstCell < 0) {
+            firstCell = cell;
+            firstDigit = num;
+            firstUnit = placingUnit;
+        }
+        board.place(cell, num);
+        cand[cell] = 0;
+        remaining--;
+        int bit = SudokuBoard.bit(num);
+        for (int peer : shape.peers(cell)) {
+            if (cand[peer] == bit) broken = true; // the peer loses its last candidate
+            cand[peer] &= ~bit;
+        }
+    }
+
+    private boolean eliminate(int cell, int bits) {
+        if ((cand[cell] & bits) == 0) return false;
+        cand[cell] &= ~bits;
+        if (cand[cell] == 0) broken = true;
+        return true;
+    }
+
+    // ---- intersections ----
+
+    /** A digit confined to one line inside a box is removed from the rest of the line. */
+    private boolean pointing() {
+        int size = shape.size();
+        boolean progress = false;
+        for (int box = 0; box < size; box++) {
+            int[] boxCells = shape.unit(2 * size + box);
+            for (int num = 1; num <= size; num++) {
+                int bit = SudokuBoard.bit(num);
+                int row = -1, col = -1;
+                for (int cell : boxCells) {
+                    if ((cand[cell] & bit) == 0) continue;
+                    row = row == -1 || row == shape.rowOf(cell) ? shape.rowOf(cell) : -2;
+                    col = col == -1 || col == shape.colOf(cell) ? shape.colOf(cell) : -2;
+                }
+                if (row >= 0) progress |= eliminateOutsideBox(shape.unit(row), box, bit);
+                if (col >= 0) progress |= eliminateOutsideBox(shape.unit(size + col), box, bit);
+            }
+            if (progress) return true;
+        }
+        return false;
+    }
+
+    /** A digit confined to one box inside a line is removed from the rest of the box. */
+    private boolean claiming() {
+        int size = shape.size();
+        boolean progress = false;
+        for (int line = 0; line < 2 * size; line++) {
+            int[] lineCells = shape.unit(line);
+            for (int num = 1; num <= size; num++) {
+                int bit = SudokuBoard.bit(num);
+                int box = -1;
+                for (int cell : lineCells) {
+                    if ((cand[cell] & bit) == 0) continue;
+                    box = box == -1 || box == shape.boxOf(cell) ? shape.boxOf(cell) : -2;
+                }
+                if (box < 0) continue;
+                for (int cell : shape.unit(2 * size + box)) {
+                    boolean onLine = line < size ? shape.rowOf(cell) == line : shape.colOf(cell) == line - size;
+                    if (!onLine) progress |= eliminate(cell, bit);
+                }
+            }
+            if (progress) return true;
+        }
+        return false;
+    }
+
+    private boolean eliminateOutsideBox(int[] lineCells, int box, int bit) {
+        boolean progress = false;
+        for (int cell : lineCells) {
+            if (shape.boxOf(cell) != box) progress |= eliminate(cell, bit);
+        }
+        return progress;
+    }
+
+    // ---- subsets ----
+
+    /** k cells of a unit that together hold only k digits: those digits leave the other cells. */
+    private boolean nakedSubset(int k) {
+        for (int unit = 0; unit < shape.unitCount(); unit++) {
+            if (nakedSubset(shape.unit(unit), k, 0, 0, 0)) return true;
+        }
+        return false;
+    }
+
+    private boolean nakedSubset(int[] unitCells, int k, int from, int chosen, int digits) {
+        if (Integer.bitCount(chosen) == k) {
+            if (Integer.bitCount(digits) != k) return false;
+            boolean progress = false;
+            for (int i = 0; i < unitCells.length; i++) {
+                if ((chosen & (1 << i)) == 0) progress |= eliminate(unitCells[i], digits);
+            }
+            return progress;
+        }
+        for (int i = from; i < unitCells.length; i++) {
+            int mask = cand[unitCells[i]];
+            if (mask == 0 || Integer.bitCount(mask) > k) continue;
+            int union = digits | mask;
+            if (Integer.bitCount(union) > k) continue;
+            if (nakedSubset(unitCells, k, i + 1, chosen | (1 << i), union)) return true;
+        }
+        return false;
+    }
+
+    /** k digits that fit only into the same k cells of a unit: those cells lose every other digit. */
+    private boolean hiddenSubset(int k) {
+        int size = shape.size();
+        for (int unit = 0; unit < shape.unitCount(); unit++) {
+            int[] unitCells = shape.unit(unit);
+            for (int num = 1; num <= size; num++) {
+                int bit = SudokuBoard.bit(num), places = 0;
+                for (int i = 0; i < unitCells.length; i++) {
+                    if ((cand[unitCells[i]] & bit) != 0) places |= 1 << i;
+                }
+                digitPlaces[num - 1] = places;
+            }
+            if (hiddenSubset(unitCells, k, 0, 0, 0)) return true;
+        }
+        return false;
+    }
+
+    private boolean hiddenSubset(int[] unitCells, int k, int from, int digits, int places) {
+        if (Integer.bitCount(digits) == k) {
+            if (Integer.bitCount(places) != k) return false;
+            boolean progress = false;
+            for (int i = 0; i < unitCells.length; i++) {
+                if ((places & (1 << i)) != 0) progress |= eliminate(unitCells[i], ~digits);
+            }
+            return progress;
+        }
+        for (int d = from; d < shape.size(); d++) {
+            int digitMask = digitPlaces[d];
+            if (digitMask == 0 || Integer.bitCount(digitMask) > k) continue;
+            int union = places | digitMask;
+            if (Integer.bitCount(union) > k) continue;
+            if (hiddenSubset(unitCells, k, d + 1, digits | (1 << d), union)) return true;
+        }
+        return false;
+    }
+
+    // ---- fish ----
+
+    /**
+     * X-Wing (k = 2) and Swordfish (k = 3): if a digit's places in k rows lie
+     * in only k columns, it leaves the other cells of those columns; the same
+     * with rows and columns swapped.
+     */
+    private boolean fish(int k) {
+        int size = shape.size();
+        for (int num = 1; num <= size; num++) {
+            int bit = SudokuBoard.bit(num);
+            for (int byRows = 0; byRows < 2; byRows++) {
+                for (int line = 0; line < size; line++) {
+                    int mask = 0;
+                    for (int cross = 0; cross < size; cross++) {
+                        int cell = byRows == 1 ? shape.cellOf(line, cross) : shape.cellOf(cross, line);
+                        if ((cand[cell] & bit) != 0) mask |= 1 << cross;
+                    }
+                    lineMasks[line] = mask;
+                }
+                if (fish(k, bit, byRows == 1, 0, 0, 0)) return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean fish(int k, int bit, boolean byRows, int from, int baseLines, int coverLines) {
+        if (Integer.bitCount(baseLines) == k) {
+            if (Integer.bitCount(coverLines) != k) return false;
+            boolean progress = false;
+            for (int line = 0; line < shape.size(); line++) {
+                if ((baseLines & (1 << line)) != 0) continue;
+                for (int covers = coverLines; covers != 0; covers &= covers - 1) {
+                    int cross = Integer.numberOfTrailingZeros(covers);
+                    progress |= eliminate(byRows ? shape.cellOf(line, cross) : shape.cellOf(cross, line), bit);
+                }
+            }
+            return progress;
+        }
+        for (int line = from; line < shape.size(); line++) {
+            int mask = lineMasks[line];
+            if (Integer.bitCount(mask) < 2 || Integer.bitCount(mask) > k) continue;
+            int union = coverLines | mask;
+            if (Integer.bitCount(union) > k) continue;
+            if (fish(k, bit, byRows, line + 1, baseLines | (1 << line), union)) return true;
+        }
+        return false;
+    }
+
+    // ---- wings and chains ----
+
+    /**
+     * Pivot {x,y} seeing pincers {x,z} and {y,z}: one pincer is z, so z leaves
+     * every cell that sees both pincers.
+     */
+    private boolean xyWing() {
+        for (int pivot = 0; pivot < cand.length; pivot++) {
+            int xy = cand[pivot];
+            if (Integer.bitCount(xy) != 2) continue;
+            for (int first : shape.peers(pivot)) {
+                int xz = cand[first];
+                if (Integer.bitCount(xz) != 2 || Integer.bitCount(xz & xy) != 1) continue;
+                int z = xz & ~xy;
+                int yz = (xy & ~xz) | z;
+                for (int second : shape.peers(pivot)) {
+                    if (cand[second] != yz || sees(first, second)) continue;
+                    boolean progress = false;
+                    for (int cell : shape.peers(first)) {
+                        if (cell != second && sees(cell, second)) progress |= eliminate(cell, z);
+                    }
+                    if (progress) return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Single-digit chains: cells linked by conjugate pairs (a unit where the
+     * digit has exactly two places) alternate between true and false, so they
+     * split into two colours. If two cells of one colour see each other, that
+     * colour is false everywhere; a cell seeing both colours cannot hold the digit.
+     */
+    private boolean simpleColouring() {
+        int size = shape.size(), cells = cand.length;
+        for (int num = 1; num <= size; num++) {
+            int bit = SudokuBoard.bit(num);
+            Arrays.fill(linkCount, 0);
+            for (int unit = 0; unit < shape.unitCount(); unit++) {
+                int a = -1, b = -1, count = 0;
+                for (int cell : shape.unit(unit)) {
+                    if ((cand[cell] & bit) == 0) continue;
+                    if (count == 0) a = cell; else b = cell;
+                    count++;
+                }
+                if (count != 2) continue;
+                links[a][linkCount[a]++] = b;
+                links[b][linkCount[b]++] = a;
+            }
+
+            Arrays.fill(colour, -1);
+            for (int start = 0; start < cells; start++) {
+                if (linkCount[start] == 0 || colour[start] >= 0) continue;
+                // colour one connected component breadth-first
+                int length = 0, head = 0;
+                component[length++] = start;
+                colour[start] = 0;
+                while (head < length) {
+                    int cell = component[head++];
+                    for (int i = 0; i < linkCount[cell]; i++) {
+                        int next = links[cell][i];
+                        if (colour[next] >= 0) continue;
+                        colour[next] = 1 - colour[cell];
+                        component[length++] = next;
+                    }
+                }
+
+                for (int i = 0; i < length; i++) {
+                    for (int j = i + 1; j < length; j++) {
+                        int a = component[i], b = component[j];
+                        if (colour[a] != colour[b] || !sees(a, b)) continue;
+                        boolean progress = false;
+                        for (int c = 0; c < length; c++) {
+                            if (colour[component[c]] == colour[a]) progress |= eliminate(component[c], bit);
+                        }
+                        if (progress) return true;
+                    }
+                }
+                boolean progress = false;
+                for (int cell = 0; cell < cells; cell++) {
+                    if ((cand[cell] & bit) == 0 || inComponent(cell, length)) continue;
+                    boolean seesOn = false, seesOff = false;
+                    for (int i = 0; i < length && !(seesOn && seesOff); i++) {
+                        if (sees(cell, component[i])) {
+                            if (colour[component[i]] == 0) seesOn = true; else seesOff = true;
+                        }
+                    }
+                    if (seesOn && seesOff) progress |= eliminate(cell, bit);
+                }
+                if (progress) return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean inComponent(int cell, int length) {
+        for (int i = 0; i < length; i++) {
+            if (component[i] == cell) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Chains of two-candidate cells: if the start cell is not z, the chain forces
+     * its end cell to be z. Either way one of the two holds z, so z leaves every
+     * cell that sees both. Searched breadth-first over (cell, forced digit) states.
+     */
+    private boolean xyChain() {
+        int size = shape.size();
+        for (int start = 0; start < cand.length; start++) {
+            if (Integer.bitCount(cand[start]) != 2) continue;
+            for (int zs = cand[start]; zs != 0; zs &= zs - 1) {
+                int z = zs & -zs;
+                seenStamp++;
+                int head = 0, length = 0;
+                int first = Integer.numberOfTrailingZeros(cand[start] & ~z);
+                queue[length++] = start * size + first;
+                seen[start * size + first] = seenStamp;
+
+                while (head < length) {
+                    int state = queue[head++];
+                    int cell = state / size, onBit = 1 << (state % size);
+                    for (int next : shape.peers(cell)) {
+                        int mask = cand[next];
+                        if (next == start || Integer.bitCount(mask) != 2 || (mask & onBit) == 0) continue;
+                        int forced = mask & ~onBit;
+                        if (forced == z && eliminateSeenByBoth(start, next, z)) return true;
+                        int nextState = next * size + Integer.numberOfTrailingZeros(forced);
+                        if (seen[nextState] == seenStamp) continue;
+                        seen[nextState] = seenStamp;
+                        queue[length++] = nextState;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    private boolean eliminateSeenByBoth(int a, int b, int bits) {
+        boolean progress = false;
+        for (int cell : shape.peers(a)) {
+            if (cell != b && sees(cell, b)) progress |= eliminate(cell, bits);
+        }
+        return progress;
+    }
+
+    private boolean sees(int a, int b) {
+        return a != b && (shape.rowOf(a) == shape.rowOf(b) || shape.colOf(a) == shape.colOf(b)
+                || shape.boxOf(a) == shape.boxOf(b));
+    }
+}
@@ -0,0 +1,149 @@
+package ninad.sudoku.logic;
+
+/**
+ * The grid a player is filling in, kept as digit counts per row, column and box.
+ * <p>
+ * Unlike {@link SudokuBoard}, which refuses conflicting digits, a game state
+ * holds whatever the player typed, conflicts included, and tracks them:
+ * every place or erase adjusts three counters and a running total of
+ * duplicates, so validating a move, asking whether a cell conflicts and
+ * asking whether the whole grid is valid or solved are all constant time
+ * and allocate nothing. Given cells can be marked so the UI can lock them.
+ * Not thread-safe; meant for the FX thread.
+ */
+public final class GameState {
+
+    private final BoardShape shape;
+    private final int stride;           // digits 0..size per unit
+    private final int[] cells;
+    private final boolean[] given;
+    private final int[] rowCount, colCount, boxCount;
+    private int filled;
+    private int duplicates;             // extra copies of a digit summed over all units
+
+    /** Empty grid of the shape. */
+    public GameState(BoardShape shape) {
+        this.shape = shape;
+        stride = shape.size() + 1;
+        cells = new int[shape.cells()];
+        given = new boolean[shape.cells()];
+        rowCount = new int[shape.size() * stride];
+        colCount = new int[shape.size() * stride];
+        boxCount = new int[shape.size() * stride];
+    }
+
+    /** Grid holding the puzzle's clues as given cells. */
+    public GameState(int[][] puzzle) {
+        this(BoardShape.forGrid(puzzle));
+        int size = shape.size();
+        for (int row = 0; row < size; row++) {
+            for (int col = 0; col < size; col++) {
+                if (puzzle[row][col] == 0) continue;
+                set(row, col, puzzle[row][col]);
+                given[shape.cellOf(row, col)] = true;
+            }
+        }
+    }
+
+    public BoardShape shape() {
+        return shape;
+    }
+
+    public int get(int row, int col) {
+        return cells[shape.cellOf(row, col)];
+    }
+
+    public boolean isGiven(int row, int col) {
+        return given[shape.cellOf(row, col)];
+    }
+
+    /**
+     * Put a digit into a cell, 0 erases it. Conflicting digits are accepted;
+     * returns true if the cell is now empty or free of conflicts.
+     */
+    public boolean set(int row, int col, int digit) {
+        if (digit < 0 || digit > shape.size()) throw new IllegalArgumentException("Digit out of range: " + digit);
+        int cell = shape.cellOf(row, col);
+        int old = cells[cell];
+        if (old == digit) return !isConflicting(row, col);
+        int r = row * stride, c = col * stride, b = shape.boxOf(cell) * stride;
+        if (old != 0) {
+            duplicates -= remove(rowCount, r + old) + remove(colCount, c + old) + remove(boxCount, b + old);
+            filled--;
+        }
+        cells[cell] = digit;
+        if (digit == 0) return true;
+        filled++;
+        duplicates += add(rowCount, r + digit) + add(colCount, c + digit) + add(boxCount, b + digit);
+        return rowCount[r + digit] == 1 && colCount[c + digit] == 1 && boxCount[b + digit] == 1;
+    }
+
+    /** Whether the digit could go into the cell without a conflict, ignoring what the cell holds now. */
+    public boolean canPlace(int row, int col, int digit) {
+        int own = get(row, col) == digit ? 1 : 0;
+        int box = shape.boxOf(shape.cellOf(row, col));
+        return rowCount[row * stride + digit] == own && colCount[col * stride + digit] == own
+                && boxCount[box * stride + digit] == own;
+    }
+
+    /** Digits not yet in the cell's row, column or box as a bit mask (bit d-1 for digit d); 0 for a filled cell. */
+    public int candidates(int row, int col) {
+        if (get(row, col) != 0) return 0;
+        int r = row * stride, c = col * stride, b = shape.boxOf(shape.cellOf(row, col)) * stride;
+        int mask = 0;
+        for (int digit = 1; digit <= shape.size(); digit++) {
+            if (rowCount[r + digit] == 0 && colCount[c + digit] == 0 && boxCount[b + digit] == 0) {
+                mask |= SudokuBoard.bit(digit);
+            }
+        }
+        return mask;
+    }
+
+    /** True if the cell's digit also appears in its row, column or box. */
+    public boolean isConflicting(int row, int col) {
+        int digit = get(row, col);
+        if (digit == 0) return false;
+        int box = shape.boxOf(shape.cellOf(row, col));
+        return rowCount[row * stride + digit] > 1 || colCount[col * stride + digit] > 1
+                || boxCount[box * stride + digit] > 1;
+    }
+
+    /** No digit appears twice in a row, column or box. */
+    public boolean isValid() {
+        return duplicates == 0;
+    }
+
+    public int filledCount() {
+        return filled;
+    }
+
+    public boolean isFull() {
+        return filled == cells.length;
+    }
+
+    /** Full and without conflicts. */
+    public boolean isSolved() {
+        return isFull() && duplicates == 0;
+    }
+
+    /** Copy the digits into a grid of the state's size. */
+    public void toGrid(int[][] grid) {
+        for (int cell = 0; cell < cells.length; cell++) grid[shape.rowOf(cell)][shape.colOf(cell)] = cells[cell];
+    }
+
+    public int[][] toGrid() {
+        int[][] grid = shape.newGrid();
+        toGrid(grid);
+        return grid;
+    }
+
+    /** Count one more copy of a digit; returns 1 if it is a duplicate. */
+    private static int add(int[] counts, int index) {
+        return counts[index]++ > 0 ? 1 : 0;
+    }
+
+    /** Count one copy less; returns 1 if a duplicate went away. */
+    private static int remove(int[] counts, int index) {
+        return --counts[index] > 0 ? 1 : 0;
+    }
+}
@@ -0,0 +1,106 @@
+package ninad.sudoku.logic;
+
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.random.RandomGenerator;
+
+/**
+ * Produces full solution grids by applying random validity-preserving
+ * transforms to a few seed grids instead of searching:
+ * digit relabelling, row permutation inside each band, column permutation
+ * inside each stack, band and stack permutation and, for square boxes,
+ * transposition. Each 9x9 seed alone has more than 10^12 distinct images.
+ * <p>
+ * The seed grids are found once per shape by backtracking from a fixed seed
+ * and shared by all shufflers. {@link #next(int[][])} only writes into the
+ * caller's grid and the shuffler's own permutation arrays, so it allocates
+ * nothing. Not thread-safe: use one shuffler per thread.
+ */
+public final class GridShuffler {
+
+    /** Essentially different seed grids kept per shape. */
+    static final int SEED_GRIDS = 16;
+
+    private static final Map<BoardShape, int[][]> SEEDS = new ConcurrentHashMap<>();
+
+    private final BoardShape shape;
+    private final RandomGenerator random;
+    private final int[][] seeds;
+    private final int[] rowMap, colMap, digitMap;
+    private final int[] bands, stacks, inner;
+
+    public GridShuffler(BoardShape shape, RandomGenerator random) {
+        this.shape = shape;
+        this.random = random;
+        seeds = SEEDS.computeIfAbsent(shape, GridShuffler::createSeeds);
+        int size = shape.size();
+        rowMap = new int[size];
+        colMap = new int[size];
+        digitMap = new int[size + 1];
+        bands = new int[size / shape.boxRows()];
+        stacks = new int[size / shape.boxCols()];
+        inner = new int[Math.max(shape.boxRows(), shape.boxCols())];
+    }
+
+    public BoardShape shape() {
+        return shape;
+    }
+
+    /** Overwrite the grid with a new random solution grid. */
+    public void next(int[][] grid) {
+        int size = shape.size();
+        int[] seed = seeds[random.nextInt(seeds.length)];
+
+        // rows: bands of boxRows rows; columns: stacks of boxCols columns
+        permuteLines(rowMap, bands, shape.boxRows());
+        permuteLines(colMap, stacks, shape.boxCols());
+        digitMap[0] = 0;
+        for (int num = 1; num <= size; num++) digitMap[num] = num;
+        shuffle(digitMap, 1, size);
+
+        boolean transpose = shape.boxRows() == shape.boxCols() && random.nextBoolean();
+        for (int row = 0; row < size; row++) {
+            int[] target = grid[row];
+            int from = rowMap[row];
+            for (int col = 0; col < size; col++) {
+                int cell = transpose ? colMap[col] * size + from : from * size + colMap[col];
+                target[col] = digitMap[seed[cell]];
+            }
+        }
+    }
+
+    /** Fill map with a permutation of lines that keeps each group of groupSize lines together. */
+    private void permuteLines(int[] map, int[] groups, int groupSize) {
+        for (int g = 0; g < groups.length; g++) groups[g] = g;
+        shuffle(groups, 0, groups.length);
+        for (int g = 0; g < groups.length; g++) {
+            for (int i = 0; i < groupSize; i++) inner[i] = i;
+            shuffle(inner, 0, groupSize);
+            for (int i = 0; i < groupSize; i++) map[g * groupSize + i] = groups[g] * groupSize + inner[i];
+        }
+    }
+
+    /** Fisher-Yates over values[from .. from+length). */
+    private void shuffle(int[] values, int from, int length) {
+        for (int i = length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int tmp = values[from + i];
+            values[from + i] = values[from + j];
+            values[from + j] = tmp;
+        }
+    }
+
+    private static int[][] createSeeds(BoardShape shape) {
+        // fixed seed: seeded generators must see the same seed grids in every run
+        SplittableRandom random = new SplittableRandom(shape.size());
+        int[][] seeds = new int[SEED_GRIDS][];
+        for (int i = 0; i < SEED_GRIDS; i++) {
+            SudokuBoard board = new SudokuBoard(shape);
+            SudokuGenerator.fill(board, random);
+            seeds[i] = new int[shape.cells()];
+            for (int cell = 0; cell < shape.cells(); cell++) seeds[i][cell] = board.get(cell);
+        }
+        return seeds;
+    }
+}
@@ -0,0 +1,99 @@
+package ninad.sudoku.logic;
+
+import java.util.Arrays;
+
+/**
+ * Validation of flat packed grids: one byte per cell, row by row, 0 for empty.
+ * <p>
+ * Every check is a single pass that only reads the grid, keeping the used
+ * digits of each row, column and box as bit masks in its own scratch array,
+ * so any number of threads may validate the same grid at once.
+ * <p>
+ * {@link #validateAll} checks a whole array of grids per call. When the
+ * {@code jdk.incubator.vector} module is present (run with
+ * {@code --add-modules jdk.incubator.vector}) it checks one grid per vector lane;
+ * otherwise, or if the module cannot be loaded, the scalar loop is used.
+ */
+public final class GridValidator {
+
+    /** Batch kernel; the vectorized one is loaded reflectively so this class links without the module. */
+    interface Batch {
+        int validate(byte[] grids, int count, BoardShape shape, boolean[] results);
+    }
+
+    private static final Batch VECTOR = loadVector();
+
+    private GridValidator() {
+    }
+
+    /** True if batches run on the Vector API. */
+    public static boolean isVectorized() {
+        return VECTOR != null;
+    }
+
+    public static byte[] pack(int[][] grid) {
+        byte[] cells = new byte[grid.length * grid.length];
+        pack(grid, cells, 0);
+        return cells;
+    }
+
+    /** Write the grid row by row into cells starting at offset. */
+    public static void pack(int[][] grid, byte[] cells, int offset) {
+        int size = grid.length;
+        for (int row = 0; row < size; row++) {
+            for (int col = 0; col < size; col++) cells[offset + row * size + col] = (byte) grid[row][col];
+        }
+    }
+
+    /** True if no digit repeats in a row, column or box and every value is in 0..size. */
+    public static boolean isValid(byte[] cells, int offset, BoardShape shape) {
+        return isValid(cells, offset, shape, new int[3 * shape.size()]);
+    }
+
+    /**
+     * Validate {@code grids.length / shape.cells()} grids stored back to back;
+     * results[i] tells whether grid i is valid. Returns the number of valid grids.
+     */
+    public static int validateAll(byte[] grids, BoardShape shape, boolean[] results) {
+        int count = grids.length / shape.cells();
+        if (results.length < count) throw new IllegalArgumentException("Need " + count + " results");
+        return VECTOR != null ? VECTOR.validate(grids, count, shape, results) : validateScalar(grids, 0, count, shape, results);
+    }
+
+    /** Scalar check of grids from..count, shared with the vector kernel for its remainder. */
+    static int validateScalar(byte[] grids, int from, int count, BoardShape shape, boolean[] results) {
+        int[] used = new int[3 * shape.size()];
+        int valid = 0;
+        for (int g = from; g < count; g++) {
+            Arrays.fill(used, 0);
+            results[g] = isValid(grids, g * shape.cells(), shape, used);
+            if (results[g]) valid++;
+        }
+        return valid;
+    }
+
+    private static boolean isValid(byte[] cells, int offset, BoardShape shape, int[] used) {
+        int size = shape.size();
+        for (int cell = 0; cell < shape.cells(); cell++) {
+            int value = cells[offset + cell];
+            if (value == 0) continue;
+            if (value < 0 || value > size) return false;
+            int bit = 1 << (value - 1);
+            int row = shape.rowOf(cell), col = size + shape.colOf(cell), box = 2 * size + shape.boxOf(cell);
+            if (((used[row] | used[col] | used[box]) & bit) != 0) return false;
+            used[row] |= bit;
+            used[col] |= bit;
+            used[box] |= bit;
+        }
+        return true;
+    }
+
+    private static Batch loadVector() {
+        try {
+            return (Batch) Class.forName(GridValidator.class.getPackageName() + ".VectorGridValidator")
+                    .getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError ex) {
+            return null; // module not present: stay scalar
+        }
+    }
+}
@@ -0,0 +1,202 @@
+package ninad.sudoku.logic;
+
+import java.util.Locale;
+
+/**
+ * Finds the next cell a player can fill by logic, and says why.
+ * <p>
+ * The engine follows the game through {@link #set}: each change updates its
+ * bitmask board and recomputes the candidates of the changed cell and its
+ * peers only, so the candidate state is always current and a hint never
+ * rebuilds it. Hidden and naked singles are looked up directly in that state,
+ * which answers most positions in a few microseconds. When no single exists,
+ * the position goes to {@link DifficultyRater}, which applies the harder
+ * techniques on its own copy until a digit can be placed; that stays well
+ * under a millisecond. If the solution is known, a wrong entry is reported
+ * before anything else, since deductions from it would mislead.
+ * <p>
+ * Not thread-safe: one engine per game, used from the FX thread.
+ */
+public class HintEngine {
+
+    /** A suggested move, or a wrong entry to take back. */
+    public static final class Hint {
+        private final int row, col, digit;
+        private final DifficultyRater.Technique technique;
+        private final String explanation;
+
+        private Hint(int row, int col, int digit, DifficultyRater.Technique technique, String explanation) {
+            this.row = row;
+            this.col = col;
+            this.digit = digit;
+            this.technique = technique;
+            this.explanation = explanation;
+        }
+
+        public int getRow() {
+            return row;
+        }
+
+        public int getCol() {
+            return col;
+        }
+
+        /** Digit that belongs in the cell. */
+        public int getDigit() {
+            return digit;
+        }
+
+        /** Hardest technique needed for the move, null for a wrong entry. */
+        public DifficultyRater.Technique getTechnique() {
+            return technique;
+        }
+
+        /** True if the cell holds a wrong digit instead of being a new move. */
+        public boolean isMistake() {
+            return technique == null;
+        }
+
+        public String getExplanation() {
+            return explanation;
+        }
+
+        @Override
+        public String toString() {
+            return explanation;
+        }
+    }
+
+    private final BoardShape shape;
+    private final SudokuBoard board;
+    private final int[] cand;
+    private final int[][] solution;
+    private final DifficultyRater rater = new DifficultyRater();
+
+    /**
+     * Engine for a puzzle; the solution may be null, in which case wrong
+     * entries are not detected. Throws IllegalArgumentException for conflicting clues.
+     */
+    public HintEngine(int[][] puzzle, int[][] solution) {
+        shape = BoardShape.forGrid(puzzle);
+        board = new SudokuBoard(shape);
+        if (!board.load(puzzle)) throw new IllegalArgumentException("Puzzle has conflicting clues");
+        this.solution = solution;
+        cand = new int[shape.cells()];
+        for (int cell = 0; cell < cand.length; cell++) {
+            cand[cell] = board.get(cell) == 0 ? board.candidates(cell) : 0;
+        }
+    }
+
+    /**
+     * Follow a change in the player's grid; digit 0 erases the cell.
+     * Returns false and changes nothing if the digit is already in a peer.
+     */
+    public boolean set(int row, int col, int digit) {
+        int cell = shape.cellOf(row, col);
+        int old = board.get(cell);
+        if (old == digit) return true;
+        if (old != 0) board.clear(cell);
+        if (digit != 0) {
+            if (!board.canPlace(cell, digit)) {
+                if (old != 0) board.place(cell, old);
+                return false;
+            }
+            board.place(cell, digit);
+        }
+        update(cell);
+        for (int peer : shape.peers(cell)) update(peer);
+        return true;
+    }
+
+    /** Next hint, or null if the grid is full or no technique short of guessing applies. */
+    public Hint next() {
+        if (solution != null) {
+            for (int cell = 0; cell < cand.length; cell++) {
+                int value = board.get(cell);
+                int right = solution[shape.rowOf(cell)][shape.colOf(cell)];
+                if (value != 0 && value != right) {
+                    return new Hint(shape.rowOf(cell), shape.colOf(cell), right, null,
+                            String.format("The %d at %s is wrong.", value, cellName(cell)));
+                }
+            }
+        }
+        if (board.isFull()) return null;
+
+        Hint hint = hiddenSingle();
+        if (hint == null) hint = nakedSingle();
+        if (hint != null) return hint;
+
+        DifficultyRater.Technique technique = rater.firstPlacement(board);
+        if (technique == null) return null;
+        String single = singleText(rater.firstCell(), rater.firstDigit(), rater.firstUnit());
+        return new Hint(shape.rowOf(rater.firstCell()), shape.colOf(rater.firstCell()), rater.firstDigit(),
+                technique, "Use " + techniqueName(technique) + " to rule out candidates. Then " + single);
+    }
+
+    private Hint hiddenSingle() {
+        for (int unit = 0; unit < shape.unitCount(); unit++) {
+            int[] unitCells = shape.unit(unit);
+            int once = 0, twice = 0;
+            for (int cell : unitCells) {
+                twice |= once & cand[cell];
+                once |= cand[cell];
+            }
+            int single = once & ~twice;
+            if (single == 0) continue;
+            int bit = single & -single;
+            for (int cell : unitCells) {
+                if ((cand[cell] & bit) != 0) {
+                    int digit = SudokuBoard.lowestDigit(bit);
+                    return new Hint(shape.rowOf(cell), shape.colOf(cell), digit,
+                            DifficultyRater.Technique.HIDDEN_SINGLE, capitalize(singleText(cell, digit, unit)));
+                }
+            }
+        }
+        return null;
+    }
+
+    private Hint nakedSingle() {
+        for (int cell = 0; cell < cand.length; cell++) {
+            int mask = cand[cell];
+            if (mask != 0 && (mask & (mask - 1)) == 0) {
+                int digit = SudokuBoard.lowestDigit(mask);
+                return new Hint(shape.rowOf(cell), shape.colOf(cell), digit,
+                        DifficultyRater.Technique.NAKED_SINGLE, capitalize(singleText(cell, digit, -1)));
+            }
+        }
+        return null;
+    }
+
+    private void update(int cell) {
+        cand[cell] = board.get(cell) == 0 ? board.candidates(cell) : 0;
+    }
+
+    /** Why the digit goes into the cell: the only place in the unit, or the only candidate (unit -1). */
+    private String singleText(int cell, int digit, int unit) {
+        if (unit < 0) {
+            return String.format("%s can only be %d: every other digit is already in its row, column or box.",
+                    cellName(cell), digit);
+        }
+        return String.format("%d can only go to %s: there is no other place for it in %s.",
+                digit, cellName(cell), unitName(unit));
+    }
+
+    private String cellName(int cell) {
+        return "row " + (shape.rowOf(cell) + 1) + ", column " + (shape.colOf(cell) + 1);
+    }
+
+    private String unitName(int unit) {
+        int size = shape.size();
+        if (unit < size) return "row " + (unit + 1);
+        if (unit < 2 * size) return "column " + (unit - size + 1);
+        return "box " + (unit - 2 * size + 1);
+    }
+
+    private static String techniqueName(DifficultyRater.Technique technique) {
+        return technique.name().toLowerCase(Locale.ROOT).replace('_', ' ');
+    }
+
+    private static String capitalize(String text) {
+        return Character.toUpperCase(text.charAt(0)) + text.substring(1);
+    }
+}
@@ -0,0 +1,255 @@
+package ninad.sudoku.logic;
+
+/**
+ * Non-recursive solver with an explicit, preallocated search stack.
+ * <p>
+ * Uses the same naked/hidden single propagation and minimum-remaining-values
+ * branching as {@link PropagatingSolver}, but keeps one frame per branching
+ * point (cell, choices left to try, trail mark) in flat arrays instead of on the
+ * call stack. That makes the search safe for any board size and lets it stop
+ * between any two nodes:
+ * <ul>
+ *   <li>a node budget and a time budget cap the worst-case latency,</li>
+ *   <li>{@link #cancel()} and {@link #pause()} may be called from other threads,</li>
+ *   <li>after a pause or an exhausted budget {@link #run()} resumes where it stopped.</li>
+ * </ul>
+ * Typical use: {@code start(grid)}, then {@code run()} until it returns a final status.
+ * {@link #solve} and {@link #countSolutions} do both in one call.
+ */
+public class IterativeSolver implements Solver {
+
+    public enum Status {
+        /** The solution limit was reached. */
+        SOLVED,
+        /** The whole search space was explored; see {@link #getSolutionCount()}. */
+        EXHAUSTED,
+        /** Stopped by {@link #pause()}; run() continues. */
+        PAUSED,
+        /** The node budget ran out; run() continues with a fresh budget. */
+        NODE_BUDGET,
+        /** The time budget ran out; run() continues with a fresh budget. */
+        TIME_BUDGET,
+        /** Stopped by {@link #cancel()}; the search cannot be resumed. */
+        CANCELLED;
+
+        /** True if run() can be called again to continue the search. */
+        public boolean isResumable() {
+            return this == PAUSED || this == NODE_BUDGET || this == TIME_BUDGET;
+        }
+    }
+
+    /** Nodes between two clock reads and progress updates. */
+    private static final int CHECK_INTERVAL = 1024;
+
+    private long nodeBudget = Long.MAX_VALUE;
+    private long timeBudgetNanos = Long.MAX_VALUE;
+
+    private volatile boolean cancelRequested;
+    private volatile boolean pauseRequested;
+    private volatile long progressNodes;
+
+    // search state, kept between run() calls
+    private SudokuBoard board;
+    private Trail trail;
+    // a frame branches on a cell (frameUnit -1, frameMask = digits left) or on the
+    // places of digit frameCell in unit frameUnit (frameMask = unit positions left)
+    private int[] frameCell, frameUnit, frameMask, frameMark;
+    private int depth;
+    private int[] solution;
+    private int solutionCount;
+    private int limit;
+    private long nodes;
+    private long elapsedNanos;
+    private Status status;
+
+    /** Maximum nodes per run() call, Long.MAX_VALUE for no limit. */
+    public IterativeSolver setNodeBudget(long nodes) {
+        this.nodeBudget = nodes;
+        return this;
+    }
+
+    /** Maximum running time per run() call in milliseconds, 0 or less for no limit. */
+    public IterativeSolver setTimeBudgetMillis(long millis) {
+        this.timeBudgetNanos = millis <= 0 ? Long.MAX_VALUE : millis * 1_000_000;
+        return this;
+    }
+
+    /** Ask the running search to stop for good at its next node; the next start() clears it. Thread-safe. */
+    @Override
+    public void cancel() {
+        cancelRequested = true;
+    }
+
+    /** Ask the running search to return PAUSED at its next node. Thread-safe. */
+    public void pause() {
+        pauseRequested = true;
+    }
+
+    /**
+     * Prepare a search for up to {@code limit} solutions of the grid.
+     * Returns false if the grid has conflicting clues (nothing to run).
+     */
+    public boolean start(int[][] grid, int limit) {
+        BoardShape shape = BoardShape.forGrid(grid);
+        if (board == null || board.shape() != shape) {
+            board = new SudokuBoard(shape);
+            trail = new Trail(shape);
+            frameCell = new int[shape.cells()];
+            frameUnit = new int[shape.cells()];
+            frameMask = new int[shape.cells()];
+            frameMark = new int[shape.cells()];
+            solution = new int[shape.cells()];
+        }
+        this.limit = limit;
+        solutionCount = 0;
+        nodes = 0;
+        progressNodes = 0;
+        elapsedNanos = 0;
+        depth = 0;
+        trail.reset();
+        cancelRequested = false;
+        pauseRequested = false;
+
+        if (!board.load(grid)) {
+            status = Status.EXHAUSTED;
+            return false;
+        }
+        status = Status.PAUSED; // ready to run
+        nodes++;
+        if (!trail.propagate(board)) {
+            status = Status.EXHAUSTED;
+        } else if (board.isFull()) {
+            recordSolution();
+            status = solutionCount >= limit ? Status.SOLVED : Status.EXHAUSTED;
+        } else {
+            push();
+        }
+        return true;
+    }
+
+    /** Run (or resume) the prepared search until it finishes or has to stop. */
+    public Status run() {
+        if (status == null || !status.isResumable()) return status;
+        pauseRequested = false;
+        long runStart = System.nanoTime();
+        long runNodes = 0;
+
+        while (true) {
+            if (cancelRequested) return finish(Status.CANCELLED, runStart);
+            if (pauseRequested) return finish(Status.PAUSED, runStart);
+            if (runNodes >= nodeBudget) return finish(Status.NODE_BUDGET, runStart);
+            if ((nodes % CHECK_INTERVAL) == 0) {
+                progressNodes = nodes;
+                if (System.nanoTime() - runStart >= timeBudgetNanos) return finish(Status.TIME_BUDGET, runStart);
+            }
+            if (depth == 0) return finish(Status.EXHAUSTED, runStart);
+
+            // advance the top frame to its next choice
+            int top = depth - 1;
+            trail.undo(board, frameMark[top]);
+            int mask = frameMask[top];
+            if (mask == 0) {
+                depth--; // all choices tried, backtrack
+                continue;
+            }
+            frameMask[top] = mask & (mask - 1);
+            if (frameUnit[top] < 0) {
+                trail.place(board, frameCell[top], SudokuBoard.lowestDigit(mask));
+            } else {
+                int target = board.shape().unit(frameUnit[top])[Integer.numberOfTrailingZeros(mask)];
+                trail.place(board, target, frameCell[top]);
+            }
+            nodes++;
+            runNodes++;
+
+            if (!trail.propagate(board)) continue;
+            if (board.isFull()) {
+                recordSolution();
+                if (solutionCount >= limit) return finish(Status.SOLVED, runStart);
+                continue;
+            }
+            push();
+        }
+    }
+
+    @Override
+    public boolean solve(int[][] grid) {
+        if (!start(grid, 1) || run() != Status.SOLVED) return false;
+        writeSolution(grid);
+        return true;
+    }
+
+    @Override
+    public int countSolutions(int[][] grid, int limit) {
+        if (limit <= 0 || !start(grid, limit)) return 0;
+        run();
+        return solutionCount;
+    }
+
+    /** Copy the first solution found into the grid. Returns false if there is none yet. */
+    public boolean writeSolution(int[][] grid) {
+        if (solutionCount == 0) return false;
+        int size = grid.length;
+        for (int cell = 0; cell < solution.length; cell++) grid[cell / size][cell % size] = solution[cell];
+        return true;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public int getSolutionCount() {
+        return solutionCount;
+    }
+
+    /** Nodes of the current search; exact between runs, refreshed every 1024 nodes while running. */
+    @Override
+    public long getNodeCount() {
+        return progressNodes;
+    }
+
+    /** Time spent inside run() for the current search. */
+    public long getElapsedMillis() {
+        return elapsedNanos / 1_000_000;
+    }
+
+    /**
+     * Open a frame on the most constrained cell of the (propagated, unsolved) board,
+     * or on a digit with even fewer places left in one of its units.
+     */
+    private void push() {
+        int cell = Trail.pickCell(board);
+        int cellChoices = Integer.bitCount(board.candidates(cell));
+        if (cellChoices > 2 && trail.pickDigitPlaces(board) < cellChoices) {
+            int[] unitCells = board.shape().unit(trail.branchUnit);
+            int bit = SudokuBoard.bit(trail.branchDigit);
+            int positions = 0;
+            for (int i = 0; i < unitCells.length; i++) {
+                if (board.get(unitCells[i]) == 0 && (board.candidates(unitCells[i]) & bit) != 0) positions |= 1 << i;
+            }
+            frameCell[depth] = trail.branchDigit;
+            frameUnit[depth] = trail.branchUnit;
+            frameMask[depth] = positions;
+        } else {
+            frameCell[depth] = cell;
+            frameUnit[depth] = -1;
+            frameMask[depth] = board.candidates(cell);
+        }
+        frameMark[depth] = trail.mark();
+        depth++;
+    }
+
+    private void recordSolution() {
+        if (solutionCount == 0) {
+            for (int cell = 0; cell < solution.length; cell++) solution[cell] = board.get(cell);
+        }
+        solutionCount++;
+    }
+
+    private Status finish(Status result, long runStart) {
+        elapsedNanos += System.nanoTime() - runStart;
+        progressNodes = nodes;
+        status = result;
+        return result;
+    }
+}
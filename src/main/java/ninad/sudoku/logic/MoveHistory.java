@@ -0,0 +1,328 @@
+package ninad.sudoku.logic;
+
+import java.util.Arrays;
+
+/**
+ * Undo and redo for a game in progress: the player's digits, their notes, the score and the streak.
+ * <p>
+ * A move is one record of two longs. The first packs the cell, the old and new
+ * digit, the streak before and after, and the score delta. The second is the
+ * note delta: the XOR of the cell's own notes, plus one bit per peer that lost
+ * the placed digit (bit i stands for {@code shape.peers(cell)[i]}). Those peer
+ * changes are made and reverted by {@link PencilMarks}, which owns the rule
+ * for what a placed digit does to the notes. A record
+ * can be applied in either direction, so undo and redo each apply one record
+ * and allocate nothing. A move that changes many cells, such as filling in all
+ * notes, is stored as one record per cell, chained so they undo together.
+ * <p>
+ * Every {@value #SNAPSHOT_INTERVAL} records, the position before the next
+ * record is also kept as a snapshot: one int per cell, plus the score and
+ * streak. {@link #jumpTo} restores the nearest snapshot and replays fewer than
+ * {@value #SNAPSHOT_INTERVAL} records. Reaching any point in history therefore
+ * never replays from the start. A new move after an undo drops the redo tail.
+ * <p>
+ * Records are kept for the latest {@value #MAX_RECORDS} only. At the cap, the
+ * oldest {@value #SNAPSHOT_INTERVAL} records are dropped, but the snapshot
+ * before them moves to an archive of at most {@value #ARCHIVE_SLOTS} points,
+ * which keeps the start of the game and thins the rest to every other point
+ * when full. Undo therefore never runs out: past the records it steps from
+ * archived point to archived point, further apart the older they are. The
+ * points in history are numbered from the start, archived points first, and
+ * are renumbered when the archive grows. A 9x9 game holds at most about 64 KB
+ * of records, 21 KB of snapshots and 11 KB of archive, however long it runs.
+ * <p>
+ * Supports shapes up to 16x16. Not thread-safe; meant for the FX thread.
+ */
+public class MoveHistory {
+
+    /** Told about every cell whose digit changed, including through undo, redo and jumps. */
+    public interface Listener {
+        void valueChanged(int row, int col, int digit);
+    }
+
+    static final int SNAPSHOT_INTERVAL = 64;
+    static final int MAX_RECORDS = 64 * SNAPSHOT_INTERVAL;
+    static final int ARCHIVE_SLOTS = 32;
+
+    // move record: cell | old << 9 | new << 14 | chained << 19 | old streak << 20 | new streak << 32 | score delta << 44
+    private static final int CELL_BITS = 9, VALUE_BITS = 5, STREAK_BITS = 12, SCORE_SHIFT = 44;
+    private static final long CHAINED = 1L << 19;
+    private static final int MAX_STREAK = (1 << STREAK_BITS) - 1;
+    private static final int MAX_SCORE_DELTA = (1 << (63 - SCORE_SHIFT)) - 1;
+    // note record: XOR of the cell's notes | peer mask << 16
+    private static final int PEER_SHIFT = 16;
+
+    private final BoardShape shape;
+    private final GameState state;
+    private final PencilMarks marks;
+    private Listener listener;
+    private int score, streak;
+
+    private long[] moves = new long[256];
+    private long[] noteDeltas = new long[256];
+    private int size, position;
+    private int floor;                  // records before it finish a move that was cut off, and stay applied
+    private int[][] snapshots = new int[8][];
+    private final int[][] archive = new int[ARCHIVE_SLOTS][];
+    private int archived;               // archived points, the start of the game first
+    private int archivePoint = -1;      // the archived point restored, or -1 when at a record
+
+    /** History of a game starting from the state and notes as they are now. */
+    public MoveHistory(GameState state, PencilMarks marks) {
+        this(state, marks, 0, 0);
+    }
+
+    /** History of a game that already has a score and streak, e.g. one resumed from a save. */
+    public MoveHistory(GameState state, PencilMarks marks, int score, int streak) {
+        if (state.shape() != marks.shape()) throw new IllegalArgumentException("State and notes differ in shape");
+        if (state.shape().size() > 16) throw new IllegalArgumentException("History supports grids up to 16x16");
+        this.shape = state.shape();
+        this.state = state;
+        this.marks = marks;
+        this.score = score;
+        this.streak = Math.min(Math.max(streak, 0), MAX_STREAK);
+    }
+
+    public void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    public int score() {
+        return score;
+    }
+
+    public int streak() {
+        return streak;
+    }
+
+    /** The current point in history, from 0 at the start of the game to {@link #size()}. */
+    public int position() {
+        return archivePoint >= 0 ? archivePoint : archived + position;
+    }
+
+    /** The last point in history, counting undone moves that can be redone. */
+    public int size() {
+        return archived + size;
+    }
+
+    public boolean canUndo() {
+        return archivePoint > 0 || archivePoint < 0 && (position > floor || archived > 0);
+    }
+
+    public boolean canRedo() {
+        return archivePoint >= 0 ? archivePoint + 1 < archived || size > 0 : position < size;
+    }
+
+    /**
+     * Record and apply a move. The cell gets the digit, where 0 erases it.
+     * The score changes by scoreDelta, and the streak becomes newStreak.
+     * A placed digit clears the cell's notes and removes itself from the
+     * notes of the cell's peers. Returns false if the move changes nothing,
+     * and then nothing is recorded.
+     */
+    public boolean play(int row, int col, int digit, int scoreDelta, int newStreak) {
+        if (digit < 0 || digit > shape.size()) throw new IllegalArgumentException("Digit out of range: " + digit);
+        if (Math.abs(scoreDelta) > MAX_SCORE_DELTA) throw new IllegalArgumentException("Score delta too large: " + scoreDelta);
+        int cell = shape.cellOf(row, col);
+        int old = state.get(row, col);
+        newStreak = Math.min(Math.max(newStreak, 0), MAX_STREAK);
+        long notes = digit == 0 ? 0 : marks.mask(cell) | marks.peersNoting(cell, digit) << PEER_SHIFT;
+        if (old == digit && notes == 0 && scoreDelta == 0 && newStreak == streak) return false;
+        push(move(cell, old, digit, streak, newStreak, scoreDelta, false), notes);
+        return true;
+    }
+
+    /** Record and apply adding or removing one note. */
+    public void toggleNote(int row, int col, int digit) {
+        if (digit < 1 || digit > shape.size()) throw new IllegalArgumentException("Digit out of range: " + digit);
+        int value = state.get(row, col);
+        push(move(shape.cellOf(row, col), value, value, streak, streak, 0, false), SudokuBoard.bit(digit));
+    }
+
+    /**
+     * Note every candidate of each empty cell, replacing what was there, as
+     * a single move. Returns false if no notes changed.
+     */
+    public boolean fillNotes() {
+        boolean chained = false;
+        for (int cell = 0; cell < shape.cells(); cell++) {
+            int row = shape.rowOf(cell), col = shape.colOf(cell);
+            int delta = marks.mask(cell) ^ state.candidates(row, col);
+            if (delta == 0) continue;
+            int value = state.get(row, col);
+            push(move(cell, value, value, streak, streak, 0, chained), delta);
+            chained = true;
+        }
+        return chained;
+    }
+
+    /** Take back the last move; returns false if there is none. */
+    public boolean undo() {
+        if (archivePoint >= 0 || position <= floor) {
+            int point = archivePoint >= 0 ? archivePoint - 1 : archived - 1;
+            if (point < 0) return false;
+            restoreArchived(point);
+            return true;
+        }
+        do {
+            apply(--position, false);
+        } while ((moves[position] & CHAINED) != 0);
+        return true;
+    }
+
+    /** Apply the next undone move again; returns false if there is none. */
+    public boolean redo() {
+        if (archivePoint >= 0) {
+            if (archivePoint + 1 < archived) {
+                restoreArchived(archivePoint + 1);
+                return true;
+            }
+            if (size == 0) return false;
+            jumpTo(archived + floor);
+            return true;
+        }
+        if (position == size) return false;
+        do {
+            apply(position++, true);
+        } while (position < size && (moves[position] & CHAINED) != 0);
+        return true;
+    }
+
+    /**
+     * Go to a point in history, between 0 and {@link #size()}. A point in the
+     * middle of a multi-cell move goes back to the start of that move, or
+     * forward to its end if the start is no longer kept.
+     */
+    public void jumpTo(int point) {
+        if (point < 0 || point > size()) throw new IllegalArgumentException("No such point in history: " + point);
+        if (point < archived) {
+            restoreArchived(point);
+            return;
+        }
+        int target = Math.max(point - archived, floor);
+        while (target < size && (moves[target] & CHAINED) != 0) target--;
+        int snapshot = Math.min(target / SNAPSHOT_INTERVAL, snapshotCount() - 1);
+        if (snapshot >= 0 && (archivePoint >= 0 || Math.abs(target - position) > target - snapshot * SNAPSHOT_INTERVAL)) {
+            restore(snapshot);
+        }
+        while (position < target) apply(position++, true);
+        while (position > target) apply(--position, false);
+    }
+
+    private void push(long move, long notes) {
+        if (archivePoint >= 0) { // a new move at an archived point drops everything after it
+            archived = archivePoint;
+            archivePoint = -1;
+            position = floor = 0;
+        }
+        size = position; // a new move drops the redo tail
+        if (size == MAX_RECORDS) dropOldest();
+        if (size % SNAPSHOT_INTERVAL == 0) snapshot(size / SNAPSHOT_INTERVAL);
+        if (size == moves.length) {
+            moves = Arrays.copyOf(moves, size * 2);
+            noteDeltas = Arrays.copyOf(noteDeltas, size * 2);
+        }
+        moves[size] = move;
+        noteDeltas[size] = notes;
+        size++;
+        apply(position++, true);
+    }
+
+    private void apply(int index, boolean forward) {
+        long move = moves[index], notes = noteDeltas[index];
+        int cell = (int) (move & ((1 << CELL_BITS) - 1));
+        int digit = field(move, CELL_BITS + VALUE_BITS, VALUE_BITS);
+        setValue(cell, forward ? digit : field(move, CELL_BITS, VALUE_BITS));
+
+        int own = (int) (notes & ((1 << PEER_SHIFT) - 1));
+        if (own != 0) marks.change(cell, marks.mask(cell) ^ own);
+        long peerMask = notes >>> PEER_SHIFT;
+        if (peerMask != 0) marks.notePeers(cell, digit, peerMask, !forward);
+
+        int scoreDelta = (int) (move >> SCORE_SHIFT);
+        score += forward ? scoreDelta : -scoreDelta;
+        streak = field(move, forward ? 32 : 20, STREAK_BITS);
+    }
+
+    /** Drop the oldest snapshot interval of records, archiving the snapshot before them. */
+    private void dropOldest() {
+        // only archive points between moves, never half of a multi-cell one
+        if ((moves[0] & CHAINED) == 0) archive(snapshots[0]);
+        System.arraycopy(moves, SNAPSHOT_INTERVAL, moves, 0, size - SNAPSHOT_INTERVAL);
+        System.arraycopy(noteDeltas, SNAPSHOT_INTERVAL, noteDeltas, 0, size - SNAPSHOT_INTERVAL);
+        System.arraycopy(snapshots, 1, snapshots, 0, snapshots.length - 1);
+        snapshots[snapshots.length - 1] = null;
+        size -= SNAPSHOT_INTERVAL;
+        position -= SNAPSHOT_INTERVAL;
+        floor = 0;
+        while (floor < size && (moves[floor] & CHAINED) != 0) floor++;
+    }
+
+    /** Add the newest archived point; when full, keep the start of the game and every other point after it. */
+    private void archive(int[] snap) {
+        if (archived == ARCHIVE_SLOTS) {
+            for (int i = 1; i < ARCHIVE_SLOTS / 2; i++) archive[i] = archive[2 * i];
+            Arrays.fill(archive, ARCHIVE_SLOTS / 2, ARCHIVE_SLOTS, null);
+            archived = ARCHIVE_SLOTS / 2;
+        }
+        archive[archived++] = snap;
+    }
+
+    private int snapshotCount() {
+        return (size + SNAPSHOT_INTERVAL - 1) / SNAPSHOT_INTERVAL;
+    }
+
+    /** Keep the current position as snapshot k, reusing the array of a discarded redo tail. */
+    private void snapshot(int k) {
+        if (k == snapshots.length) snapshots = Arrays.copyOf(snapshots, k * 2);
+        int cells = shape.cells();
+        if (snapshots[k] == null) snapshots[k] = new int[cells + 2];
+        int[] snap = snapshots[k];
+        for (int cell = 0; cell < cells; cell++) {
+            snap[cell] = state.get(shape.rowOf(cell), shape.colOf(cell)) | marks.mask(cell) << VALUE_BITS;
+        }
+        snap[cells] = score;
+        snap[cells + 1] = streak;
+    }
+
+    private void restore(int k) {
+        load(snapshots[k]);
+        position = k * SNAPSHOT_INTERVAL;
+        archivePoint = -1;
+    }
+
+    private void restoreArchived(int point) {
+        load(archive[point]);
+        archivePoint = point;
+    }
+
+    private void load(int[] snap) {
+        int cells = shape.cells();
+        // erase changed cells first, so the grid never holds a conflict on the way
+        for (int cell = 0; cell < cells; cell++) {
+            if (state.get(shape.rowOf(cell), shape.colOf(cell)) != (snap[cell] & ((1 << VALUE_BITS) - 1))) setValue(cell, 0);
+        }
+        for (int cell = 0; cell < cells; cell++) {
+            setValue(cell, snap[cell] & ((1 << VALUE_BITS) - 1));
+            marks.change(cell, snap[cell] >>> VALUE_BITS);
+        }
+        score = snap[cells];
+        streak = snap[cells + 1];
+    }
+
+    private void setValue(int cell, int digit) {
+        int row = shape.rowOf(cell), col = shape.colOf(cell);
+        if (state.get(row, col) == digit) return;
+        state.set(row, col, digit);
+        if (listener != null) listener.valueChanged(row, col, digit);
+    }
+
+    private static long move(int cell, int old, int digit, int oldStreak, int newStreak, int scoreDelta, boolean chained) {
+        return cell | (long) old << CELL_BITS | (long) digit << (CELL_BITS + VALUE_BITS) | (chained ? CHAINED : 0)
+                | (long) oldStreak << 20 | (long) newStreak << 32 | (long) scoreDelta << SCORE_SHIFT;
+    }
+
+    private static int field(long record, int shift, int bits) {
+        return (int) (record >>> shift) & ((1 << bits) - 1);
+    }
+}
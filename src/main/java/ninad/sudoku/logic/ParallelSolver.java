@@ -0,0 +1,172 @@
+package ninad.sudoku.logic;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Work-stealing parallel solver on a {@link ForkJoinPool}.
+ * <p>
+ * The search tree is split at its shallow branching points into fork/join
+ * tasks; below {@link #MAX_SPLIT_DEPTH}, or once the pool already has
+ * enough queued work, a task finishes its subtree with the sequential
+ * {@link PropagatingSolver}. All tasks of one call share a stop flag and
+ * a solution counter, so siblings stop as soon as the first solution is
+ * found (solve) or the limit is reached (count).
+ * <p>
+ * Easy grids are first tried sequentially with a small node budget and
+ * never touch the pool. Safe to share between threads.
+ */
+public class ParallelSolver implements Solver {
+
+    /** Nodes the sequential attempt may use before the search is split. */
+    private static final long SEQUENTIAL_NODE_BUDGET = 2_000;
+    private static final int MAX_SPLIT_DEPTH = 8;
+    /** Stop splitting when this many tasks are queued beyond what idle workers can take. */
+    private static final int MAX_SURPLUS_TASKS = 3;
+
+    private final ForkJoinPool pool;
+    private final ThreadLocal<Long> lastNodes = ThreadLocal.withInitial(() -> 0L);
+    private final Set<Search> running = ConcurrentHashMap.newKeySet();
+    private volatile boolean cancelled;
+
+    public ParallelSolver() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    public ParallelSolver(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    @Override
+    public boolean solve(int[][] grid) {
+        Search search = run(grid, 1);
+        if (search == null || search.firstSolution.get() == null) return false;
+        int[] solution = search.firstSolution.get();
+        for (int cell = 0; cell < solution.length; cell++) {
+            grid[cell / grid.length][cell % grid.length] = solution[cell];
+        }
+        return true;
+    }
+
+    @Override
+    public int countSolutions(int[][] grid, int limit) {
+        Search search = run(grid, limit);
+        return search == null ? 0 : Math.min(search.solutions.get(), limit);
+    }
+
+    /** Stop all running searches; this solver stays cancelled, so later calls find nothing. */
+    @Override
+    public void cancel() {
+        cancelled = true;
+        for (Search search : running) search.stop.set(true);
+    }
+
+    /** Nodes visited by the last call made from the current thread, summed over all tasks. */
+    @Override
+    public long getNodeCount() {
+        return lastNodes.get();
+    }
+
+    private Search run(int[][] grid, int limit) {
+        SudokuBoard board = SudokuBoard.forGrid(grid);
+        if (!board.load(grid) || limit <= 0) {
+            lastNodes.set(0L);
+            return null;
+        }
+        Search search = new Search(limit);
+        running.add(search);
+        try {
+            // checked after registering, so a concurrent cancel() is never missed
+            if (cancelled) search.stop.set(true);
+
+            // easy grids: a short sequential search is cheaper than splitting
+            PropagatingSolver probe = new PropagatingSolver();
+            probe.nodeBudget = SEQUENTIAL_NODE_BUDGET;
+            probe.stop = search.stop;
+            int found = probe.countSolutions(board, limit);
+            search.nodes.add(probe.getNodeCount());
+            if (!probe.budgetExhausted()) {
+                search.solutions.set(found);
+                if (found > 0) search.firstSolution.set(probe.solution().clone());
+            } else if (!search.stop.get()) {
+                pool.invoke(new SearchTask(search, board, 0));
+            }
+        } finally {
+            running.remove(search);
+        }
+        lastNodes.set(search.nodes.sum());
+        return search;
+    }
+
+    /** State shared by all tasks of one call. */
+    private static final class Search {
+        final int limit;
+        final AtomicBoolean stop = new AtomicBoolean();
+        final AtomicInteger solutions = new AtomicInteger();
+        final AtomicReference<int[]> firstSolution = new AtomicReference<>();
+        final LongAdder nodes = new LongAdder();
+
+        Search(int limit) {
+            this.limit = limit;
+        }
+
+        void recordFirst(int[] solution) {
+            if (firstSolution.get() == null) firstSolution.compareAndSet(null, solution.clone());
+        }
+    }
+
+    private static final class SearchTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        // tasks live only inside one search and are never serialized
+        private final transient Search search;
+        private final transient SudokuBoard board;
+        private final int depth;
+
+        SearchTask(Search search, SudokuBoard board, int depth) {
+            this.search = search;
+            this.board = board;
+            this.depth = depth;
+        }
+
+        @Override
+        protected void compute() {
+            if (search.stop.get()) return;
+            PropagatingSolver solver = new PropagatingSolver();
+            solver.stop = search.stop;
+            solver.sharedSolutions = search.solutions;
+
+            if (depth >= MAX_SPLIT_DEPTH || getSurplusQueuedTaskCount() > MAX_SURPLUS_TASKS) {
+                // finish this subtree sequentially
+                int found = solver.countSolutions(board, search.limit);
+                search.nodes.add(solver.getNodeCount());
+                if (found > 0) search.recordFirst(solver.solution());
+                return;
+            }
+
+            List<SudokuBoard> children = solver.expand(board);
+            search.nodes.add(solver.getNodeCount());
+            if (children == null) return; // contradiction
+            if (children.isEmpty()) {
+                // solved by propagation alone
+                int[] solution = new int[board.shape().cells()];
+                for (int cell = 0; cell < solution.length; cell++) solution[cell] = board.get(cell);
+                search.recordFirst(solution);
+                if (search.solutions.incrementAndGet() >= search.limit) search.stop.set(true);
+                return;
+            }
+
+            List<SearchTask> tasks = new ArrayList<>(children.size());
+            for (SudokuBoard child : children) tasks.add(new SearchTask(search, child, depth + 1));
+            invokeAll(tasks);
+        }
+    }
+}
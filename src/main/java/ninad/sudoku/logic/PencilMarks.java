@@ -0,0 +1,89 @@
+package ninad.sudoku.logic;
+
+/**
+ * The player's candidate notes: a digit bit mask per cell (bit d-1 for digit d).
+ * <p>
+ * A placed digit is removed from the notes of its peers through the shape's
+ * precomputed peer table, so it touches at most the cell and its 20 peers
+ * (on 9x9). Only cells whose mask actually changes are reported to the
+ * {@link Listener}, which lets the UI repaint just those.
+ * <p>
+ * Keeps no history of its own. A game makes every note change through
+ * {@link MoveHistory}, whether a single note, a placement or filling in all
+ * candidates, so one undo takes back notes and digits together.
+ * Not thread-safe; meant for the FX thread.
+ */
+public class PencilMarks {
+
+    /** Told about every cell whose notes changed. */
+    public interface Listener {
+        void notesChanged(int row, int col, int mask);
+    }
+
+    private final BoardShape shape;
+    private final int[] notes;
+    private Listener listener;
+
+    public PencilMarks(BoardShape shape) {
+        this.shape = shape;
+        notes = new int[shape.cells()];
+    }
+
+    public void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    public BoardShape shape() {
+        return shape;
+    }
+
+    /** Notes of a cell as a bit mask. */
+    public int get(int row, int col) {
+        return notes[shape.cellOf(row, col)];
+    }
+
+    public boolean has(int row, int col, int digit) {
+        return (get(row, col) & SudokuBoard.bit(digit)) != 0;
+    }
+
+    /** Replace all notes of a cell. */
+    public void set(int row, int col, int mask) {
+        change(shape.cellOf(row, col), mask & shape.allDigits());
+    }
+
+    int mask(int cell) {
+        return notes[cell];
+    }
+
+    /** Peers of the cell whose notes have the digit: bit i stands for {@code shape.peers(cell)[i]}. */
+    long peersNoting(int cell, int digit) {
+        int bit = SudokuBoard.bit(digit);
+        int[] peers = shape.peers(cell);
+        long mask = 0;
+        for (int i = 0; i < peers.length; i++) {
+            if ((notes[peers[i]] & bit) != 0) mask |= 1L << i;
+        }
+        return mask;
+    }
+
+    /** Take the digit out of the notes of the peers in a {@link #peersNoting} mask, or put it back. */
+    void notePeers(int cell, int digit, long peerMask, boolean noted) {
+        int bit = SudokuBoard.bit(digit);
+        int[] peers = shape.peers(cell);
+        for (; peerMask != 0; peerMask &= peerMask - 1) {
+            int peer = peers[Long.numberOfTrailingZeros(peerMask)];
+            change(peer, noted ? notes[peer] | bit : notes[peer] & ~bit);
+        }
+    }
+
+    /** Set a cell's notes, telling the listener if they changed. */
+    void change(int cell, int mask) {
+        if (notes[cell] == mask) return;
+        notes[cell] = mask;
+        notify(cell);
+    }
+
+    private void notify(int cell) {
+        if (listener != null) listener.notesChanged(shape.rowOf(cell), shape.colOf(cell), notes[cell]);
+    }
+}
@@ -0,0 +1,177 @@
+package ninad.sudoku.logic;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Backtracking with constraint propagation.
+ * At every search node naked singles (a cell with one candidate) and
+ * hidden singles (a digit with one possible cell in a row, column or box)
+ * are placed until nothing changes; the search then branches on the empty
+ * cell with the fewest candidates (minimum remaining values), or on the
+ * places of a digit in a unit when that digit has even fewer options.
+ * Placements are recorded on a trail so a failed branch is undone cheaply.
+ * <p>
+ * Solving and counting share one search: solving is counting with a limit
+ * of one, and counting simply keeps going after the first solution instead
+ * of starting over.
+ */
+public class PropagatingSolver implements Solver {
+
+    // search buffers, sized for the shape of the board being searched
+    private BoardShape shape;
+    private Trail trail;
+    private int[] solution;
+    private int solutionCount;
+    private int limit;
+    private long nodes;
+    private volatile boolean cancelled;
+
+    // hooks for ParallelSolver: a stop flag and solution counter shared by all tasks,
+    // and a node budget after which the search gives up
+    AtomicBoolean stop;
+    AtomicInteger sharedSolutions;
+    long nodeBudget = Long.MAX_VALUE;
+    private boolean budgetExhausted;
+
+    @Override
+    public boolean solve(int[][] grid) {
+        SudokuBoard board = SudokuBoard.forGrid(grid);
+        if (!board.load(grid) || countSolutions(board, 1) == 0) return false;
+        for (int cell = 0; cell < solution.length; cell++) {
+            grid[shape.rowOf(cell)][shape.colOf(cell)] = solution[cell];
+        }
+        return true;
+    }
+
+    @Override
+    public int countSolutions(int[][] grid, int limit) {
+        SudokuBoard board = SudokuBoard.forGrid(grid);
+        if (!board.load(grid)) return 0; // conflicting clues
+        return countSolutions(board, limit);
+    }
+
+    /**
+     * Count solutions of a board, stopping at {@code limit}.
+     * The board is searched in place and left exactly as it was passed in,
+     * so callers that toggle single cells can keep one board around.
+     */
+    public int countSolutions(SudokuBoard board, int limit) {
+        prepare(board.shape());
+        nodes = 0;
+        trail.reset();
+        solutionCount = 0;
+        budgetExhausted = false;
+        this.limit = limit;
+        if (limit > 0) search(board);
+        return solutionCount;
+    }
+
+    /** Stop the running search; this solver stays cancelled, so later calls find nothing. Thread-safe. */
+    @Override
+    public void cancel() {
+        cancelled = true;
+    }
+
+    @Override
+    public long getNodeCount() {
+        return nodes;
+    }
+
+    private void prepare(BoardShape shape) {
+        if (this.shape == shape) return;
+        this.shape = shape;
+        trail = new Trail(shape);
+        solution = new int[shape.cells()];
+    }
+
+    /** True if the last count stopped early because the node budget ran out. */
+    boolean budgetExhausted() {
+        return budgetExhausted;
+    }
+
+    /** First solution found by the last count; valid only if it returned at least 1. */
+    int[] solution() {
+        return solution;
+    }
+
+    private void search(SudokuBoard board) {
+        if (cancelled || stop != null && stop.get()) return;
+        if (++nodes > nodeBudget) {
+            budgetExhausted = true;
+            return;
+        }
+        int mark = trail.mark();
+        if (!trail.propagate(board)) {
+            trail.undo(board, mark);
+            return;
+        }
+        if (board.isFull()) {
+            if (solutionCount == 0) {
+                for (int cell = 0; cell < solution.length; cell++) solution[cell] = board.get(cell);
+            }
+            solutionCount++;
+            if (sharedSolutions != null && sharedSolutions.incrementAndGet() >= limit) stop.set(true);
+            trail.undo(board, mark);
+            return;
+        }
+
+        int branchMark = trail.mark();
+        int cell = Trail.pickCell(board);
+        int cellChoices = Integer.bitCount(board.candidates(cell));
+        if (cellChoices > 2 && trail.pickDigitPlaces(board) < cellChoices) {
+            // a digit has fewer possible places in some unit than the best cell has candidates
+            int bit = SudokuBoard.bit(trail.branchDigit);
+            for (int target : shape.unit(trail.branchUnit)) {
+                if (solutionCount >= limit || budgetExhausted) break;
+                if (board.get(target) != 0 || (board.candidates(target) & bit) == 0) continue;
+                trail.place(board, target, trail.branchDigit);
+                search(board);
+                trail.undo(board, branchMark);
+            }
+        } else {
+            for (int mask = board.candidates(cell); mask != 0 && solutionCount < limit && !budgetExhausted; mask &= mask - 1) {
+                trail.place(board, cell, SudokuBoard.lowestDigit(mask));
+                search(board);
+                trail.undo(board, branchMark);
+            }
+        }
+        trail.undo(board, mark);
+    }
+
+    /**
+     * One search step for the parallel solver: propagate the board in place and
+     * return copies of it with each choice of the branching point applied.
+     * Returns null on a contradiction and an empty list if the board got solved.
+     */
+    List<SudokuBoard> expand(SudokuBoard board) {
+        prepare(board.shape());
+        trail.reset();
+        nodes++;
+        if (!trail.propagate(board)) return null;
+        trail.reset(); // the placements stay on the caller's board
+        List<SudokuBoard> children = new ArrayList<>();
+        if (board.isFull()) return children;
+
+        int cell = Trail.pickCell(board);
+        int cellChoices = Integer.bitCount(board.candidates(cell));
+        if (cellChoices > 2 && trail.pickDigitPlaces(board) < cellChoices) {
+            int bit = SudokuBoard.bit(trail.branchDigit);
+            for (int target : shape.unit(trail.branchUnit)) {
+                if (board.get(target) != 0 || (board.candidates(target) & bit) == 0) continue;
+                SudokuBoard child = new SudokuBoard(board);
+                child.place(target, trail.branchDigit);
+                children.add(child);
+            }
+        } else {
+            for (int mask = board.candidates(cell); mask != 0; mask &= mask - 1) {
+                SudokuBoard child = new SudokuBoard(board);
+                child.place(cell, SudokuBoard.lowestDigit(mask));
+                children.add(child);
+            }
+        }
+        return children;
+    }
+}
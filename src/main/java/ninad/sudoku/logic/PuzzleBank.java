@@ -0,0 +1,249 @@
+package ninad.sudoku.logic;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.random.RandomGenerator;
+
+/**
+ * Append-only file of packed puzzles with O(1) access by index.
+ * <p>
+ * File layout: an 8 byte header (magic "SDKB", version, board size, flags)
+ * followed by fixed-size records. A record holds the puzzle at 4 bits per cell,
+ * optionally the solution in the same packing, one rating byte
+ * (0 = unrated, otherwise {@link DifficultyRater.Technique} ordinal + 1) and
+ * the 8 byte generator seed. A 9x9 record is 91 bytes with the solution and
+ * 50 without, against several hundred bytes for an {@code int[][]}.
+ * <p>
+ * Reads go through a memory mapping of the file that is extended after appends.
+ * The record count follows from the file length, so a record cut short by a
+ * crash is simply not counted. When the bank is opened, the rating bytes are
+ * scanned once to build per-difficulty index lists, which makes
+ * {@link #randomIndex} O(1).
+ * Boards up to 15x15 fit the 4 bit packing; one mapping limits a bank to 2 GB.
+ */
+public class PuzzleBank implements Closeable {
+
+    private static final int MAGIC = 0x53444B42; // "SDKB"
+    private static final byte VERSION = 1;
+    private static final int HEADER = 8;
+    private static final int FLAG_SOLUTIONS = 1;
+    private static final DifficultyRater.Technique[] TECHNIQUES = DifficultyRater.Technique.values();
+
+    private final Path path;
+    private final FileChannel channel;
+    private final BoardShape shape;
+    private final boolean withSolutions;
+    private final int gridBytes;
+    private final int recordSize;
+    private final ByteBuffer record;
+    private final Map<String, IndexList> buckets = new HashMap<>();
+    private MappedByteBuffer map;
+    private int mappedCount;
+    private int count;
+
+    private PuzzleBank(Path path, FileChannel channel, BoardShape shape, boolean withSolutions) {
+        this.path = path;
+        this.channel = channel;
+        this.shape = shape;
+        this.withSolutions = withSolutions;
+        gridBytes = shape.packedBytes();
+        recordSize = gridBytes * (withSolutions ? 2 : 1) + 1 + Long.BYTES;
+        record = ByteBuffer.allocate(recordSize);
+    }
+
+    /** Open a bank, or create a 9x9 bank with solutions if the file does not exist. */
+    public static PuzzleBank open(Path path) throws IOException {
+        return open(path, BoardShape.STANDARD, true);
+    }
+
+    /**
+     * Open a bank, or create it with the given layout if the file does not exist.
+     * An existing file must have the same board size and solution flag.
+     */
+    public static PuzzleBank open(Path path, BoardShape shape, boolean withSolutions) throws IOException {
+        if (shape.size() > 15) throw new IllegalArgumentException("4 bit cells cannot hold " + shape);
+        FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            ByteBuffer header = ByteBuffer.allocate(HEADER);
+            if (channel.size() == 0) {
+                header.putInt(MAGIC).put(VERSION).put((byte) shape.size())
+                        .put((byte) (withSolutions ? FLAG_SOLUTIONS : 0)).put((byte) 0).flip();
+                channel.write(header, 0);
+            } else {
+                channel.read(header, 0);
+                header.flip();
+                if (header.remaining() < HEADER || header.getInt() != MAGIC || header.get() != VERSION) {
+                    throw new IOException("Not a puzzle bank: " + path);
+                }
+                int size = header.get();
+                boolean solutions = (header.get() & FLAG_SOLUTIONS) != 0;
+                if (size != shape.size() || solutions != withSolutions) {
+                    throw new IOException("Puzzle bank " + path + " holds " + size + "x" + size
+                            + (solutions ? " puzzles with solutions" : " puzzles without solutions"));
+                }
+            }
+            PuzzleBank bank = new PuzzleBank(path, channel, shape, withSolutions);
+            bank.load();
+            return bank;
+        } catch (IOException | RuntimeException ex) {
+            channel.close();
+            throw ex;
+        }
+    }
+
+    public BoardShape shape() {
+        return shape;
+    }
+
+    public boolean hasSolutions() {
+        return withSolutions;
+    }
+
+    /** Number of puzzles in the bank. */
+    public synchronized int size() {
+        return count;
+    }
+
+    /**
+     * Append a puzzle and return its index.
+     * The solution may be null (it is always dropped if the bank stores none),
+     * the rating may be null for an unrated puzzle.
+     */
+    public synchronized int append(int[][] puzzle, int[][] solution, DifficultyRater.Technique rating, long seed)
+            throws IOException {
+        if (puzzle.length != shape.size()) throw new IllegalArgumentException("Expected a " + shape + " grid");
+        record.clear();
+        shape.pack(puzzle, record);
+        if (withSolutions) {
+            if (solution != null) shape.pack(solution, record);
+            else record.put(new byte[gridBytes]);
+        }
+        record.put((byte) (rating == null ? 0 : rating.ordinal() + 1));
+        record.putLong(seed);
+        record.flip();
+
+        long position = HEADER + (long) count * recordSize;
+        while (record.hasRemaining()) position += channel.write(record, position);
+        int index = count++;
+        if (rating != null) bucket(rating.getDifficulty()).add(index);
+        return index;
+    }
+
+    /** Puzzle at the index (0 = empty cell). */
+    public synchronized int[][] puzzle(int index) {
+        int offset = offset(index); // may remap, so before reading map
+        return shape.unpack(map, offset);
+    }
+
+    /** Solution at the index, null if the bank or the record has none. */
+    public synchronized int[][] solution(int index) {
+        if (!withSolutions) return null;
+        int offset = offset(index) + gridBytes;
+        for (int i = 0; i < gridBytes; i++) {
+            if (map.get(offset + i) != 0) return shape.unpack(map, offset);
+        }
+        return null;
+    }
+
+    /** Hardest technique the puzzle needs, null if unrated. */
+    public synchronized DifficultyRater.Technique rating(int index) {
+        int offset = offset(index);
+        int value = map.get(offset + recordSize - Long.BYTES - 1) & 0xFF;
+        return value == 0 ? null : TECHNIQUES[value - 1];
+    }
+
+    public synchronized long seed(int index) {
+        int offset = offset(index);
+        return map.getLong(offset + recordSize - Long.BYTES);
+    }
+
+    /** Number of rated puzzles with the difficulty ("easy", "medium" or "hard", in any case). */
+    public synchronized int count(String difficulty) {
+        IndexList list = buckets.get(difficulty.toLowerCase(Locale.ROOT));
+        return list == null ? 0 : list.size;
+    }
+
+    /** Index of a random puzzle with the difficulty, -1 if there is none. */
+    public synchronized int randomIndex(String difficulty, RandomGenerator random) {
+        IndexList list = buckets.get(difficulty.toLowerCase(Locale.ROOT));
+        return list == null || list.size == 0 ? -1 : list.values[random.nextInt(list.size)];
+    }
+
+    /** Force appended records to the storage device. */
+    public synchronized void flush() throws IOException {
+        channel.force(false);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        map = null;
+        channel.close();
+    }
+
+    @Override
+    public String toString() {
+        return "PuzzleBank[" + path + ", " + shape + ", " + size() + " puzzles]";
+    }
+
+    // ---- internals ----
+
+    private void load() throws IOException {
+        count = (int) Math.min(Integer.MAX_VALUE, (channel.size() - HEADER) / recordSize);
+        remap();
+        int ratingOffset = recordSize - Long.BYTES - 1;
+        for (int index = 0; index < count; index++) {
+            int value = map.get(HEADER + index * recordSize + ratingOffset) & 0xFF;
+            if (value != 0) bucket(TECHNIQUES[value - 1].getDifficulty()).add(index);
+        }
+    }
+
+    /** Byte offset of a record, mapping newly appended records first. */
+    private int offset(int index) {
+        map(index);
+        return HEADER + index * recordSize;
+    }
+
+    private MappedByteBuffer map(int index) {
+        if (index < 0 || index >= count) throw new IndexOutOfBoundsException("No puzzle " + index + " in " + this);
+        if (index >= mappedCount) {
+            try {
+                remap();
+            } catch (IOException ex) {
+                throw new IllegalStateException("Cannot map " + path, ex);
+            }
+        }
+        return map;
+    }
+
+    private void remap() throws IOException {
+        long length = HEADER + (long) count * recordSize;
+        if (length > Integer.MAX_VALUE) throw new IOException("Puzzle bank larger than 2 GB: " + path);
+        map = channel.map(FileChannel.MapMode.READ_ONLY, 0, length);
+        mappedCount = count;
+    }
+
+    private IndexList bucket(String difficulty) {
+        return buckets.computeIfAbsent(difficulty.toLowerCase(Locale.ROOT), k -> new IndexList());
+    }
+
+    /** Growable list of record indexes. */
+    private static final class IndexList {
+        int[] values = new int[64];
+        int size;
+
+        void add(int value) {
+            if (size == values.length) values = Arrays.copyOf(values, size * 2);
+            values[size++] = value;
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package ninad.sudoku.logic;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+/**
+ * Ready-made puzzles per difficulty, so opening a game never waits for the generator.
+ * <p>
+ * Each difficulty has a bounded queue. Whenever a take leaves fewer than
+ * {@code lowWater} puzzles, a refill task generates puzzles until the queue
+ * is full again. Generation is CPU-bound, so refills run on a small pool of
+ * daemon platform threads, one fewer than there are cores, leaving a core
+ * to the UI. Only a take from an empty queue generates synchronously on
+ * the caller's thread.
+ */
+public class PuzzlePool {
+
+    public static final int DEFAULT_CAPACITY = 8;
+    public static final int DEFAULT_LOW_WATER = 3;
+
+    private final int capacity;
+    private final int lowWater;
+    private final Function<String, SudokuGenerator> generator;
+    private final Map<String, Bucket> buckets = new ConcurrentHashMap<>();
+    private final ExecutorService refillers;
+    private volatile boolean closed;
+
+    private static final class Bucket {
+        final BlockingQueue<SudokuGenerator> queue;
+        final AtomicBoolean refilling = new AtomicBoolean();
+
+        Bucket(int capacity) {
+            queue = new ArrayBlockingQueue<>(capacity);
+        }
+    }
+
+    /** Pool of 9x9 puzzles with a unique solution. */
+    public PuzzlePool() {
+        this(DEFAULT_CAPACITY, DEFAULT_LOW_WATER, SudokuGenerator::new);
+    }
+
+    /**
+     * @param capacity  puzzles kept per difficulty
+     * @param lowWater  refill starts when fewer puzzles are left
+     * @param generator creates one puzzle for a difficulty; called from background threads
+     */
+    public PuzzlePool(int capacity, int lowWater, Function<String, SudokuGenerator> generator) {
+        if (capacity < 1 || lowWater < 0 || lowWater > capacity) {
+            throw new IllegalArgumentException("Invalid pool size " + capacity + "/" + lowWater);
+        }
+        this.capacity = capacity;
+        this.lowWater = lowWater;
+        this.generator = generator;
+        int threads = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+        refillers = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "puzzle-pool");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /** Start filling the queues of the given difficulties in the background. */
+    public void warmUp(String... difficulties) {
+        for (String difficulty : difficulties) refill(key(difficulty));
+    }
+
+    /** Next puzzle of the difficulty; generated on the calling thread only if none is ready. */
+    public SudokuGenerator take(String difficulty) {
+        String key = key(difficulty);
+        Bucket bucket = bucket(key);
+        SudokuGenerator puzzle = bucket.queue.poll();
+        if (bucket.queue.size() < lowWater) refill(key);
+        return puzzle != null ? puzzle : generator.apply(key);
+    }
+
+    /** Puzzles ready for the difficulty right now. */
+    public int available(String difficulty) {
+        return bucket(key(difficulty)).queue.size();
+    }
+
+    /** Stop refilling. Running refills finish the puzzle they are working on. */
+    public void close() {
+        closed = true;
+        refillers.shutdown();
+    }
+
+    private void refill(String key) {
+        Bucket bucket = bucket(key);
+        if (closed || !bucket.refilling.compareAndSet(false, true)) return;
+        try {
+            refillers.execute(() -> {
+                try {
+                    while (!closed && bucket.queue.remainingCapacity() > 0) {
+                        bucket.queue.offer(generator.apply(key));
+                    }
+                } finally {
+                    bucket.refilling.set(false);
+                }
+                // a take that ran while the flag was still set could not start a refill; look again
+                if (bucket.queue.size() < lowWater) refill(key);
+            });
+        } catch (RejectedExecutionException ex) {
+            bucket.refilling.set(false); // closed meanwhile
+        }
+    }
+
+    private Bucket bucket(String key) {
+        return buckets.computeIfAbsent(key, k -> new Bucket(capacity));
+    }
+
+    private static String key(String difficulty) {
+        return difficulty.toLowerCase(Locale.ROOT);
+    }
+}
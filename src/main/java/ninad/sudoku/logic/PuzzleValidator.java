@@ -3,6 +3,7 @@ package ninad.sudoku.logic;
 /**
  * Extra checks for puzzle generation.
  * Not required for solving!
+ * Works on any grid size with a {@link BoardShape} box layout.
  */
 public class PuzzleValidator {
 
@@ -11,16 +12,18 @@ public class PuzzleValidator {
         for (int[] row : grid)
             for (int cell : row)
                 if (cell != 0) count++;
-        return count >= 17;
+        return count >= BoardShape.forGrid(grid).minimumClues();
     }
 
     public static boolean hasBlockDistribution(int[][] grid) {
-        for (int boxRow = 0; boxRow < 3; boxRow++) {
-            for (int boxCol = 0; boxCol < 3; boxCol++) {
+        BoardShape shape = BoardShape.forGrid(grid);
+        int boxRows = shape.boxRows(), boxCols = shape.boxCols();
+        for (int boxRow = 0; boxRow < grid.length / boxRows; boxRow++) {
+            for (int boxCol = 0; boxCol < grid.length / boxCols; boxCol++) {
                 int count = 0;
-                for (int r = 0; r < 3; r++)
-                    for (int c = 0; c < 3; c++)
-                        if (grid[boxRow*3 + r][boxCol*3 + c] != 0) count++;
+                for (int r = 0; r < boxRows; r++)
+                    for (int c = 0; c < boxCols; c++)
+                        if (grid[boxRow*boxRows + r][boxCol*boxCols + c] != 0) count++;
                 if (count < 1) return false;
             }
         }
@@ -28,9 +31,9 @@ public class PuzzleValidator {
     }
 
     public static boolean hasRowDistribution(int[][] grid) {
-        for (int row = 0; row < 9; row++) {
+        for (int row = 0; row < grid.length; row++) {
             boolean hasClue = false;
-            for (int col = 0; col < 9; col++) {
+            for (int col = 0; col < grid.length; col++) {
                 if (grid[row][col] != 0) { hasClue = true; break; }
             }
             if (!hasClue) return false;
@@ -39,9 +42,9 @@ public class PuzzleValidator {
     }
 
     public static boolean hasColDistribution(int[][] grid) {
-        for (int col = 0; col < 9; col++) {
+        for (int col = 0; col < grid.length; col++) {
             boolean hasClue = false;
-            for (int row = 0; row < 9; row++) {
+            for (int row = 0; row < grid.length; row++) {
                 if (grid[row][col] != 0) { hasClue = true; break; }
             }
             if (!hasClue) return false;
@@ -51,8 +54,10 @@ public class PuzzleValidator {
 
     /** Run all puzzle-quality checks. */
     public static String validatePuzzle(int[][] grid) {
-        if (!hasMinimumClues(grid)) return "At least 17 clues are required!";
-        if (!hasBlockDistribution(grid)) return "Each 3x3 box must contain at least 1 clue!";
+        BoardShape shape = BoardShape.forGrid(grid);
+        if (!hasMinimumClues(grid)) return "At least " + shape.minimumClues() + " clues are required!";
+        if (!hasBlockDistribution(grid))
+            return "Each " + shape.boxRows() + "x" + shape.boxCols() + " box must contain at least 1 clue!";
         if (!hasRowDistribution(grid)) return "Each row must contain at least 1 clue!";
         if (!hasColDistribution(grid)) return "Each column must contain at least 1 clue!";
         return null; // valid
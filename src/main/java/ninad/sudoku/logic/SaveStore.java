@@ -0,0 +1,167 @@
+package ninad.sudoku.logic;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Saved games in a directory, one {@code <id>.sav} file per game, written behind the caller's back.
+ * <p>
+ * {@link #save} only remembers the snapshot and returns. One writer thread
+ * does all disk I/O: {@value #COALESCE_MILLIS} ms after the first pending
+ * save it writes the newest snapshot of each game, so a burst of moves costs
+ * one write. A file is replaced atomically: written to a temporary file,
+ * forced to disk, then moved over the old one, so a crash leaves either the
+ * old or the new save, never half of one. Loading also runs on the writer
+ * thread, after any pending save, and is returned as a future.
+ * <p>
+ * Finding the last game reads only the directory's modification times and
+ * then decodes that one file. The writer thread is a daemon, so a store that
+ * is never closed cannot keep the JVM alive; {@link #close} waits up to
+ * {@value #CLOSE_TIMEOUT_MILLIS} ms for the pending writes instead.
+ */
+public class SaveStore implements AutoCloseable {
+
+    private static final Logger LOGGER = Logger.getLogger(SaveStore.class.getName());
+    static final long COALESCE_MILLIS = 1000;
+    static final long CLOSE_TIMEOUT_MILLIS = 5000;
+    private static final String SUFFIX = ".sav";
+
+    private final Path directory;
+    private final ScheduledExecutorService writer;
+    private final Map<Long, SavedGame> pending = new LinkedHashMap<>();
+    private boolean scheduled;
+
+    public SaveStore(Path directory) {
+        this.directory = directory;
+        writer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "save-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /** {@code .sudoku-master/saves} in the user's home directory. */
+    public static Path defaultDirectory() {
+        return Path.of(System.getProperty("user.home"), ".sudoku-master", "saves");
+    }
+
+    /** Queue a snapshot; replaces a queued one of the same game. Never blocks on I/O. */
+    public synchronized void save(SavedGame game) {
+        pending.put(game.getId(), game);
+        if (scheduled) return;
+        scheduled = true;
+        writer.schedule(this::drain, COALESCE_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /** Drop a finished game: a queued snapshot is discarded and its file deleted. */
+    public synchronized void delete(long id) {
+        pending.remove(id);
+        writer.execute(() -> {
+            try {
+                Files.deleteIfExists(file(id));
+            } catch (IOException ex) {
+                LOGGER.log(Level.WARNING, "Failed to delete saved game " + id, ex);
+            }
+        });
+    }
+
+    /** The most recently saved game, or null if there is none; completes on the writer thread. */
+    public CompletableFuture<SavedGame> loadLatest() {
+        return CompletableFuture.supplyAsync(() -> {
+            drain();
+            try {
+                Path latest = latest();
+                return latest == null ? null : SavedGame.decode(Files.readAllBytes(latest));
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }, writer);
+    }
+
+    /** Write what is pending now and stop, waiting a bounded time for the writes to finish. */
+    @Override
+    public void close() {
+        writer.execute(this::drain);
+        writer.shutdown();
+        try {
+            if (!writer.awaitTermination(CLOSE_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+                LOGGER.warning("Saved games still being written after " + CLOSE_TIMEOUT_MILLIS + " ms");
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void drain() {
+        List<SavedGame> games;
+        synchronized (this) {
+            games = new ArrayList<>(pending.values());
+            pending.clear();
+            scheduled = false;
+        }
+        for (SavedGame game : games) {
+            try {
+                write(game);
+            } catch (IOException ex) {
+                LOGGER.log(Level.WARNING, "Failed to save game " + game.getId(), ex);
+            }
+        }
+    }
+
+    private void write(SavedGame game) throws IOException {
+        Files.createDirectories(directory);
+        Path target = file(game.getId());
+        Path temp = directory.resolve(game.getId() + SUFFIX + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer bytes = ByteBuffer.wrap(game.encode());
+            while (bytes.hasRemaining()) channel.write(bytes);
+            channel.force(true);
+        }
+        try {
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException ex) {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /** Newest save file by modification time, without opening any. */
+    private Path latest() throws IOException {
+        if (!Files.isDirectory(directory)) return null;
+        Path latest = null;
+        FileTime latestTime = null;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + SUFFIX)) {
+            for (Path file : files) {
+                FileTime time = Files.getLastModifiedTime(file);
+                if (latestTime == null || time.compareTo(latestTime) > 0) {
+                    latest = file;
+                    latestTime = time;
+                }
+            }
+        }
+        return latest;
+    }
+
+    private Path file(long id) {
+        return directory.resolve(id + SUFFIX);
+    }
+}
@@ -0,0 +1,177 @@
+package ninad.sudoku.logic;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.zip.CRC32;
+
+/**
+ * A game in progress as it is written to disk.
+ * <p>
+ * Binary layout: an 8 byte header (magic "SDKS", version, board size, two
+ * zero bytes), then the game id, elapsed seconds, score, streak and moves,
+ * then the difficulty as a length-prefixed ASCII string. After that come the
+ * puzzle, the solution and the player's digits packed like a puzzle bank's
+ * records (4 bits per cell, first cell in the high nibble), then the
+ * notes as a count followed by (cell, mask) pairs of shorts for the cells
+ * that have any. A CRC32 of everything before it closes the record, so a
+ * torn or damaged file is rejected rather than resumed. A 9x9 game without
+ * notes takes about 170 bytes.
+ * <p>
+ * Instances are captured on the FX thread and encoded later on the saving
+ * thread, so they copy what can still change and are immutable afterwards.
+ */
+public final class SavedGame {
+
+    private static final int MAGIC = 0x53444B53; // "SDKS"
+    private static final byte VERSION = 1;
+
+    private final long id;
+    private final String difficulty;
+    private final int[][] puzzle;
+    private final int[][] solution;
+    private final int[][] digits;
+    private final int[] notes;
+    private final int elapsedSeconds, score, streak, moves;
+
+    private SavedGame(long id, String difficulty, int[][] puzzle, int[][] solution, int[][] digits, int[] notes,
+                      int elapsedSeconds, int score, int streak, int moves) {
+        this.id = id;
+        this.difficulty = difficulty;
+        this.puzzle = puzzle;
+        this.solution = solution;
+        this.digits = digits;
+        this.notes = notes;
+        this.elapsedSeconds = elapsedSeconds;
+        this.score = score;
+        this.streak = streak;
+        this.moves = moves;
+    }
+
+    /**
+     * Snapshot of a running game. The puzzle and solution are shared, since
+     * a game never changes them; the digits and notes are copied.
+     */
+    public static SavedGame capture(long id, String difficulty, int[][] puzzle, int[][] solution, GameState state,
+                                    PencilMarks marks, int elapsedSeconds, int score, int streak, int moves) {
+        BoardShape shape = state.shape();
+        if (shape.size() > 15) throw new IllegalArgumentException("4 bit cells cannot hold " + shape);
+        int[] notes = new int[shape.cells()];
+        for (int cell = 0; cell < notes.length; cell++) notes[cell] = marks.mask(cell);
+        return new SavedGame(id, difficulty, puzzle, solution, state.toGrid(), notes,
+                elapsedSeconds, score, streak, moves);
+    }
+
+    /** Identifies the game across saves; also names its file. */
+    public long getId() {
+        return id;
+    }
+
+    /** Lowercase; a name the game does not know is up to the caller to handle. */
+    public String getDifficulty() {
+        return difficulty;
+    }
+
+    public int[][] getPuzzle() {
+        return puzzle;
+    }
+
+    public int[][] getSolution() {
+        return solution;
+    }
+
+    /** The grid as the player left it, clues included. */
+    public int[][] getDigits() {
+        return digits;
+    }
+
+    /** Notes of a cell as a bit mask (bit d-1 for digit d). */
+    public int getNotes(int row, int col) {
+        return notes[row * puzzle.length + col];
+    }
+
+    public int getElapsedSeconds() {
+        return elapsedSeconds;
+    }
+
+    public int getScore() {
+        return score;
+    }
+
+    public int getStreak() {
+        return streak;
+    }
+
+    public int getMoves() {
+        return moves;
+    }
+
+    public byte[] encode() {
+        int size = puzzle.length, cells = size * size, gridBytes = (cells + 1) / 2;
+        int noted = 0;
+        for (int mask : notes) if (mask != 0) noted++;
+        byte[] name = difficulty.getBytes(StandardCharsets.US_ASCII);
+        ByteBuffer buffer = ByteBuffer.allocate(8 + Long.BYTES + 4 * Integer.BYTES + 1 + name.length
+                + 3 * gridBytes + Short.BYTES + noted * 2 * Short.BYTES + Integer.BYTES);
+
+        buffer.putInt(MAGIC).put(VERSION).put((byte) size).put((byte) 0).put((byte) 0);
+        buffer.putLong(id).putInt(elapsedSeconds).putInt(score).putInt(streak).putInt(moves);
+        buffer.put((byte) name.length).put(name);
+        BoardShape shape = BoardShape.forSize(size);
+        shape.pack(puzzle, buffer);
+        shape.pack(solution, buffer);
+        shape.pack(digits, buffer);
+        buffer.putShort((short) noted);
+        for (int cell = 0; cell < cells; cell++) {
+            if (notes[cell] != 0) buffer.putShort((short) cell).putShort((short) notes[cell]);
+        }
+        buffer.putInt(crc(buffer.array(), buffer.position()));
+        return buffer.array();
+    }
+
+    /** Decode a saved game; throws IOException if the bytes are not a complete, intact save. */
+    public static SavedGame decode(byte[] bytes) throws IOException {
+        if (bytes.length < Integer.BYTES || crc(bytes, bytes.length - Integer.BYTES)
+                != ByteBuffer.wrap(bytes, bytes.length - Integer.BYTES, Integer.BYTES).getInt()) {
+            throw new IOException("Saved game is damaged");
+        }
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(bytes, 0, bytes.length - Integer.BYTES);
+            if (buffer.getInt() != MAGIC || buffer.get() != VERSION) throw new IOException("Not a saved game");
+            int size = buffer.get();
+            buffer.getShort();
+            BoardShape shape = BoardShape.forSize(size);
+            long id = buffer.getLong();
+            int elapsedSeconds = buffer.getInt(), score = buffer.getInt(), streak = buffer.getInt(), moves = buffer.getInt();
+            byte[] name = new byte[buffer.get()];
+            buffer.get(name);
+            int[][] puzzle = unpack(shape, buffer), solution = unpack(shape, buffer), digits = unpack(shape, buffer);
+            int[] notes = new int[shape.cells()];
+            for (int i = buffer.getShort(); i > 0; i--) {
+                int cell = buffer.getShort();
+                notes[cell] = buffer.getShort() & shape.allDigits();
+            }
+            String difficulty = new String(name, StandardCharsets.US_ASCII).toLowerCase(Locale.ROOT);
+            return new SavedGame(id, difficulty, puzzle, solution, digits, notes,
+                    elapsedSeconds, score, streak, moves);
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | NegativeArraySizeException
+                 | IllegalArgumentException ex) {
+            throw new IOException("Not a saved game", ex);
+        }
+    }
+
+    /** Read a packed grid at the buffer's position and move past it. */
+    private static int[][] unpack(BoardShape shape, ByteBuffer buffer) {
+        int[][] grid = shape.unpack(buffer, buffer.position());
+        buffer.position(buffer.position() + shape.packedBytes());
+        return grid;
+    }
+
+    private static int crc(byte[] bytes, int length) {
+        CRC32 crc = new CRC32();
+        crc.update(bytes, 0, length);
+        return (int) crc.getValue();
+    }
+}
@@ -0,0 +1,150 @@
+package ninad.sudoku.logic;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs solves on a dedicated background thread so callers (the JavaFX thread
+ * in particular) never block on a search.
+ * <p>
+ * Each {@link #submit} returns a {@link Job} whose future completes with the
+ * solution, or with null if the grid has no solution. By default jobs run on
+ * {@link IterativeSolver}, so {@link Job#cancel()} stops the search within one
+ * node and {@link Job#getNodeCount()} can be polled for progress. A job can
+ * also run one of the {@link SudokuSolver.Mode} solvers, e.g. Dancing Links,
+ * which {@link Solver#cancel()} stops the same way, so a cancelled job never
+ * holds up the ones queued behind it.
+ * Worker threads are daemons and do not keep the application alive.
+ */
+public class SolveService implements AutoCloseable {
+
+    private static final AtomicInteger THREAD_IDS = new AtomicInteger();
+
+    private final ExecutorService executor;
+
+    /** Service with a single solver thread; jobs run one after another. */
+    public SolveService() {
+        this(1);
+    }
+
+    public SolveService(int threads) {
+        executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "sudoku-solver-" + THREAD_IDS.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /** Solve a copy of the grid in the background, without a time limit. */
+    public Job submit(int[][] grid) {
+        return submit(grid, 0);
+    }
+
+    /**
+     * Solve a copy of the grid in the background. If the search runs longer than
+     * {@code timeBudgetMillis} (0 = unlimited) the future fails with a TimeoutException.
+     */
+    public Job submit(int[][] grid, long timeBudgetMillis) {
+        int[][] copy = new int[grid.length][];
+        for (int i = 0; i < grid.length; i++) copy[i] = grid[i].clone();
+
+        Job job = new Job(new IterativeSolver().setTimeBudgetMillis(timeBudgetMillis));
+        executor.execute(() -> job.run(copy));
+        return job;
+    }
+
+    /** Solve a copy of the grid in the background with the solver of the mode. */
+    public Job submit(int[][] grid, SudokuSolver.Mode mode) {
+        int[][] copy = new int[grid.length][];
+        for (int i = 0; i < grid.length; i++) copy[i] = grid[i].clone();
+
+        Job job = new Job(SudokuSolver.create(mode));
+        executor.execute(() -> job.run(copy));
+        return job;
+    }
+
+    /** Stop accepting jobs and cancel the running one. */
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    /** Handle of a submitted solve. */
+    public static final class Job {
+        private final Solver solver;
+        private final CompletableFuture<int[][]> future = new CompletableFuture<>();
+        private volatile long startNanos, endNanos;
+
+        private Job(Solver solver) {
+            this.solver = solver;
+        }
+
+        /** Completes with the solution, or null if there is none. */
+        public CompletableFuture<int[][]> result() {
+            return future;
+        }
+
+        /** Stop the search. Safe to call from any thread, also before the job started. */
+        public void cancel() {
+            future.cancel(false);
+            solver.cancel();
+        }
+
+        public boolean isCancelled() {
+            return future.isCancelled();
+        }
+
+        /** Search nodes visited so far, for progress display. */
+        public long getNodeCount() {
+            return solver.getNodeCount();
+        }
+
+        /** Time the search has been running, in milliseconds. */
+        public long getElapsedMillis() {
+            if (solver instanceof IterativeSolver iterative) return iterative.getElapsedMillis();
+            if (startNanos == 0) return 0;
+            return ((endNanos != 0 ? endNanos : System.nanoTime()) - startNanos) / 1_000_000;
+        }
+
+        private void run(int[][] grid) {
+            if (future.isDone()) return; // cancelled while queued
+            if (!(solver instanceof IterativeSolver iterative)) {
+                startNanos = System.nanoTime();
+                try {
+                    boolean solved = solver.solve(grid);
+                    endNanos = System.nanoTime();
+                    future.complete(solved ? grid : null);
+                } catch (RuntimeException ex) {
+                    future.completeExceptionally(ex);
+                }
+                return;
+            }
+            IterativeSolver solver = iterative;
+            try {
+                boolean started = solver.start(grid, 1);
+                // start() clears earlier cancel requests, so look at the future again
+                if (future.isCancelled()) return;
+                if (!started) {
+                    future.complete(null); // conflicting clues
+                    return;
+                }
+                IterativeSolver.Status status = solver.run();
+                switch (status) {
+                    case SOLVED -> {
+                        solver.writeSolution(grid);
+                        future.complete(grid);
+                    }
+                    case EXHAUSTED -> future.complete(null);
+                    case TIME_BUDGET -> future.completeExceptionally(new TimeoutException(
+                            "Gave up after " + solver.getElapsedMillis() + " ms"));
+                    default -> future.cancel(false);
+                }
+            } catch (RuntimeException ex) {
+                future.completeExceptionally(ex);
+            }
+        }
+    }
+}
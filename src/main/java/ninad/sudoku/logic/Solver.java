@@ -0,0 +1,35 @@
+package ninad.sudoku.logic;
+
+/**
+ * Common interface for Sudoku solving algorithms.
+ * Implementations may keep search state between calls and are not thread-safe
+ * unless stated otherwise; use one instance per thread.
+ */
+public interface Solver {
+
+    /** Solve the grid in place. Returns false (grid untouched) if there is no solution. */
+    boolean solve(int[][] grid);
+
+    /** Solve a copy of the grid, returns null if there is no solution. */
+    default int[][] solveCopy(int[][] grid) {
+        int[][] copy = new int[grid.length][];
+        for (int i = 0; i < grid.length; i++) copy[i] = grid[i].clone();
+        return solve(copy) ? copy : null;
+    }
+
+    /**
+     * Count the solutions of the grid, stopping as soon as {@code limit} are found.
+     * Returns 0 for unsolvable grids or grids with conflicting clues; the grid is not modified.
+     */
+    int countSolutions(int[][] grid, int limit);
+
+    /**
+     * Ask a solve or count running on another thread to stop at its next node.
+     * The call then returns what it has found so far: no solution, or fewer
+     * than the limit. Implementations say whether later calls are affected.
+     */
+    void cancel();
+
+    /** Number of search nodes visited by the last call, for comparing algorithms. */
+    long getNodeCount();
+}
@@ -0,0 +1,172 @@
+package ninad.sudoku.logic;
+
+import java.util.Arrays;
+
+/**
+ * Bitmask board engine shared by the solver, generator and validator.
+ * Every row, column and box keeps its used digits as a bit mask,
+ * so placement checks and candidate lookups are single bit operations.
+ * Cells are addressed by index (row * size + col), digits are 1..size.
+ * The layout tables come from the board's {@link BoardShape}.
+ */
+public class SudokuBoard {
+
+    private final BoardShape shape;
+    private final int[] cells;
+    private final int[] rowUsed;
+    private final int[] colUsed;
+    private final int[] boxUsed;
+    private int filled = 0;
+
+    /** Create an empty 9x9 board. */
+    public SudokuBoard() {
+        this(BoardShape.STANDARD);
+    }
+
+    /** Create an empty board of the given shape. */
+    public SudokuBoard(BoardShape shape) {
+        this.shape = shape;
+        cells = new int[shape.cells()];
+        rowUsed = new int[shape.size()];
+        colUsed = new int[shape.size()];
+        boxUsed = new int[shape.size()];
+    }
+
+    /** Create a copy of another board. */
+    public SudokuBoard(SudokuBoard other) {
+        shape = other.shape;
+        cells = other.cells.clone();
+        rowUsed = other.rowUsed.clone();
+        colUsed = other.colUsed.clone();
+        boxUsed = other.boxUsed.clone();
+        filled = other.filled;
+    }
+
+    /** Empty board sized for the grid; throws IllegalArgumentException for sizes without a box layout. */
+    public static SudokuBoard forGrid(int[][] grid) {
+        return new SudokuBoard(BoardShape.forGrid(grid));
+    }
+
+    public BoardShape shape() {
+        return shape;
+    }
+
+    /**
+     * Replace the board contents with a grid of the board's size (0 = empty).
+     * Returns false if the grid has a duplicate in a row, column or box
+     * or a value outside 0..size.
+     */
+    public boolean load(int[][] grid) {
+        reset();
+        int size = shape.size();
+        for (int row = 0; row < size; row++) {
+            for (int col = 0; col < size; col++) {
+                int num = grid[row][col];
+                if (num == 0) continue;
+                int cell = row * size + col;
+                if (num < 0 || num > size || !canPlace(cell, num)) return false;
+                place(cell, num);
+            }
+        }
+        return true;
+    }
+
+    /** Clear every cell. */
+    public void reset() {
+        Arrays.fill(cells, 0);
+        Arrays.fill(rowUsed, 0);
+        Arrays.fill(colUsed, 0);
+        Arrays.fill(boxUsed, 0);
+        filled = 0;
+    }
+
+    /** Digit at the cell, 0 if empty. */
+    public int get(int cell) {
+        return cells[cell];
+    }
+
+    public int get(int row, int col) {
+        return cells[row * shape.size() + col];
+    }
+
+    /** Mask of digits not yet used by any peer of the cell. */
+    public int candidates(int cell) {
+        return ~(rowUsed[shape.rowOf(cell)] | colUsed[shape.colOf(cell)] | boxUsed[shape.boxOf(cell)])
+                & shape.allDigits();
+    }
+
+    /** Check if num can go into the (empty) cell without a conflict. */
+    public boolean canPlace(int cell, int num) {
+        return cells[cell] == 0 && (candidates(cell) & bit(num)) != 0;
+    }
+
+    /** Put num into an empty cell. The caller is responsible for checking canPlace. */
+    public void place(int cell, int num) {
+        int bit = bit(num);
+        cells[cell] = num;
+        rowUsed[shape.rowOf(cell)] |= bit;
+        colUsed[shape.colOf(cell)] |= bit;
+        boxUsed[shape.boxOf(cell)] |= bit;
+        filled++;
+    }
+
+    /** Empty a filled cell. */
+    public void clear(int cell) {
+        int num = cells[cell];
+        if (num == 0) return;
+        int bit = ~bit(num);
+        cells[cell] = 0;
+        rowUsed[shape.rowOf(cell)] &= bit;
+        colUsed[shape.colOf(cell)] &= bit;
+        boxUsed[shape.boxOf(cell)] &= bit;
+        filled--;
+    }
+
+    public int filledCount() {
+        return filled;
+    }
+
+    public boolean isFull() {
+        return filled == cells.length;
+    }
+
+    /** Write the board into an existing grid of the board's size. */
+    public void toGrid(int[][] grid) {
+        int size = shape.size();
+        for (int row = 0; row < size; row++) {
+            System.arraycopy(cells, row * size, grid[row], 0, size);
+        }
+    }
+
+    public int[][] toGrid() {
+        int[][] grid = shape.newGrid();
+        toGrid(grid);
+        return grid;
+    }
+
+    /**
+     * Digits in the row, column and box of a cell of a plain grid, the cell itself
+     * excluded, as a mask gathered through the shape's peer table. Unlike
+     * {@link #load}, this works on grids that already hold conflicts.
+     */
+    static int peerDigits(int[][] grid, int row, int col) {
+        BoardShape shape = BoardShape.forGrid(grid);
+        int mask = 0;
+        for (int peer : shape.peers(shape.cellOf(row, col))) {
+            int num = grid[shape.rowOf(peer)][shape.colOf(peer)];
+            if (num != 0) mask |= bit(num);
+        }
+        return mask;
+    }
+
+    // ---- digit masks ----
+
+    public static int bit(int num) {
+        return 1 << (num - 1);
+    }
+
+    /** Lowest digit contained in a non-empty mask. */
+    public static int lowestDigit(int mask) {
+        return Integer.numberOfTrailingZeros(mask) + 1;
+    }
+}
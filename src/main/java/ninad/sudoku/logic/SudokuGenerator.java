@@ -1,90 +1,382 @@
 package ninad.sudoku.logic;
 
+import java.time.LocalDate;
 import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.random.RandomGenerator;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
 
 public class SudokuGenerator {
 
-    private final int[][] solutionGrid = new int[9][9];
-    private final int[][] puzzleGrid = new int[9][9];
-    private final Random random = new Random();
+    /** How clues are taken out of the full grid. */
+    public enum Removal {
+        /** Remove a difficulty-dependent number of random cells; the solution may not be unique. */
+        RANDOM,
+        /** Remove up to the difficulty's count in shuffled order, keeping every clue the uniqueness needs. */
+        UNIQUE,
+        /** Try every cell once in shuffled order: a unique puzzle where no clue can be removed. */
+        MINIMAL
+    }
 
-    public SudokuGenerator(String difficulty) {
-        generateFullGrid();
-        removeCells(difficulty);
+    /** How the full solution grid is made. */
+    public enum FullGrid {
+        /** Randomized backtracking search. */
+        BACKTRACKING,
+        /** Random symmetry transforms of a few seed grids, see {@link GridShuffler}; no search. */
+        SHUFFLE
     }
 
-    /** Generate a full valid Sudoku grid using backtracking */
-    private boolean generateFullGrid() {
-        for (int row = 0; row < 9; row++) {
-            for (int col = 0; col < 9; col++) {
-                if (solutionGrid[row][col] == 0) {
-                    List<Integer> numbers = getShuffledNumbers();
-                    for (int num : numbers) {
-                        if (isSafe(solutionGrid, row, col, num)) {
-                            solutionGrid[row][col] = num;
-                            if (generateFullGrid()) return true;
-                            solutionGrid[row][col] = 0; // backtrack
-                        }
-                    }
-                    return false; // no valid number found
+    /** Symmetry of the clue pattern: each cell is removed together with its images. */
+    public enum Symmetry {
+        NONE,
+        /** Half-turn rotation about the centre: cells come in pairs. */
+        ROTATIONAL,
+        /** Reflection in the main diagonal. */
+        DIAGONAL,
+        /** Reflection in the horizontal centre line (top and bottom swap). */
+        HORIZONTAL,
+        /** Reflection in the vertical centre line (left and right swap). */
+        VERTICAL,
+        /** Both centre lines: cells come in quads. */
+        BOTH_MIRRORS;
+
+        /** Write the cell and its distinct images into group, return how many there are. */
+        int orbit(BoardShape shape, int cell, int[] group) {
+            int last = shape.size() - 1;
+            int row = shape.rowOf(cell), col = shape.colOf(cell);
+            int n = 0;
+            group[n++] = cell;
+            switch (this) {
+                case ROTATIONAL -> n = add(group, n, shape.cellOf(last - row, last - col));
+                case DIAGONAL -> n = add(group, n, shape.cellOf(col, row));
+                case HORIZONTAL -> n = add(group, n, shape.cellOf(last - row, col));
+                case VERTICAL -> n = add(group, n, shape.cellOf(row, last - col));
+                case BOTH_MIRRORS -> {
+                    n = add(group, n, shape.cellOf(last - row, col));
+                    n = add(group, n, shape.cellOf(row, last - col));
+                    n = add(group, n, shape.cellOf(last - row, last - col));
                 }
+                default -> { }
             }
+            return n;
         }
-        return true; // grid filled
+
+        private static int add(int[] group, int n, int cell) {
+            for (int i = 0; i < n; i++) {
+                if (group[i] == cell) return n; // a cell on the axis is its own image
+            }
+            group[n] = cell;
+            return n + 1;
+        }
+    }
+
+    private static final String DIFFICULTY_CODES = "EMH";
+    private static final String SYMMETRY_CODES = "NRDHVB";
+    private static final String[] DIFFICULTIES = {"easy", "medium", "hard"};
+
+    private final BoardShape shape;
+    private final String difficulty;
+    private final Removal removal;
+    private final FullGrid fullGrid;
+    private final Symmetry symmetry;
+    private final long seed;
+    private final int[][] solutionGrid;
+    private final int[][] puzzleGrid;
+    private final SplittableRandom random;
+    private final long fillNanos;
+    private final long removalNanos;
+
+    /** Generate a 9x9 puzzle with a unique solution. */
+    public SudokuGenerator(String difficulty) {
+        this(BoardShape.STANDARD, difficulty);
+    }
+
+    /** Regenerate the 9x9 puzzle of a seed: the same seed and difficulty always give the same puzzle. */
+    public SudokuGenerator(String difficulty, long seed) {
+        this(BoardShape.STANDARD, difficulty, Removal.UNIQUE, FullGrid.BACKTRACKING, seed);
+    }
+
+    /** Generate a puzzle of any shape, e.g. {@code BoardShape.forSize(16)}, with a unique solution. */
+    public SudokuGenerator(BoardShape shape, String difficulty) {
+        this(shape, difficulty, Removal.UNIQUE);
+    }
+
+    public SudokuGenerator(BoardShape shape, String difficulty, Removal removal) {
+        this(shape, difficulty, removal, FullGrid.BACKTRACKING);
     }
 
-    /** Shuffle numbers 1-9 for random placement */
-    private List<Integer> getShuffledNumbers() {
-        List<Integer> numbers = new ArrayList<>(9);
-        for (int i = 1; i <= 9; i++) numbers.add(i);
-        Collections.shuffle(numbers, random);
-        return numbers;
+    public SudokuGenerator(BoardShape shape, String difficulty, Removal removal, FullGrid fullGrid) {
+        this(shape, difficulty, removal, fullGrid, ThreadLocalRandom.current().nextLong());
     }
 
-    /** Check if the number can be placed at row,col */
-    private boolean isSafe(int[][] grid, int row, int col, int num) {
-        for (int i = 0; i < 9; i++) {
-            if (grid[row][i] == num || grid[i][col] == num) return false;
+    /**
+     * Generate the puzzle of a 64-bit seed. All randomness comes from one
+     * {@link SplittableRandom} seeded with it, so the same arguments give the
+     * same puzzle on every run and machine (for as long as the generation code
+     * itself is unchanged).
+     */
+    public SudokuGenerator(BoardShape shape, String difficulty, Removal removal, FullGrid fullGrid, long seed) {
+        this(shape, difficulty, removal, fullGrid, Symmetry.NONE, seed);
+    }
+
+    /** Generate the puzzle of a seed with a symmetric clue pattern. */
+    public SudokuGenerator(BoardShape shape, String difficulty, Removal removal, FullGrid fullGrid,
+                           Symmetry symmetry, long seed) {
+        this.shape = shape;
+        this.difficulty = difficulty;
+        this.removal = removal;
+        this.fullGrid = fullGrid;
+        this.symmetry = symmetry;
+        this.seed = seed;
+        random = new SplittableRandom(seed);
+        solutionGrid = shape.newGrid();
+        puzzleGrid = shape.newGrid();
+        long start = System.nanoTime();
+        if (fullGrid == FullGrid.SHUFFLE) {
+            new GridShuffler(shape, random).next(solutionGrid);
+        } else {
+            generateFullGrid();
         }
-        int boxRowStart = row - row % 3;
-        int boxColStart = col - col % 3;
-        for (int r = boxRowStart; r < boxRowStart + 3; r++) {
-            for (int c = boxColStart; c < boxColStart + 3; c++) {
-                if (grid[r][c] == num) return false;
-            }
+        long filled = System.nanoTime();
+        if (removal == Removal.RANDOM) {
+            removeCells(difficulty);
+        } else {
+            removeCellsUnique(removal == Removal.MINIMAL ? shape.cells() : removalCount(difficulty));
         }
-        return true;
+        fillNanos = filled - start;
+        removalNanos = System.nanoTime() - filled;
     }
 
-    /** Remove cells based on difficulty */
-    private void removeCells(String difficulty) {
-        // Copy solution to puzzle grid
-        for (int i = 0; i < 9; i++) {
-            System.arraycopy(solutionGrid[i], 0, puzzleGrid[i], 0, 9);
+    /**
+     * Puzzles from one master seed. Each puzzle gets the seed of its own
+     * {@code split()} stream of the master generator, drawn up front, so puzzle i
+     * is the same whether the returned stream is consumed sequentially or in parallel.
+     */
+    public static Stream<SudokuGenerator> stream(BoardShape shape, String difficulty, Removal removal,
+                                                 FullGrid fullGrid, long masterSeed, int count) {
+        SplittableRandom master = new SplittableRandom(masterSeed);
+        long[] seeds = new long[count];
+        for (int i = 0; i < count; i++) seeds[i] = master.split().nextLong();
+        return LongStream.of(seeds).mapToObj(seed -> new SudokuGenerator(shape, difficulty, removal, fullGrid, seed));
+    }
+
+    /** The puzzle of the day: every player gets the same puzzle for a date and difficulty. */
+    public static SudokuGenerator daily(LocalDate date, String difficulty) {
+        return new SudokuGenerator(difficulty, new SplittableRandom(date.toEpochDay()).nextLong());
+    }
+
+    /**
+     * Regenerate a puzzle from its {@link #getPuzzleId() ID}.
+     * Throws IllegalArgumentException for malformed IDs.
+     */
+    public static SudokuGenerator fromPuzzleId(String id) {
+        int dash = id.indexOf('-');
+        int codes = 0;
+        while (codes < dash && Character.isDigit(id.charAt(codes))) codes++;
+        if (dash - codes != 3 && dash - codes != 4) throw new IllegalArgumentException("Malformed puzzle ID: " + id);
+        try {
+            int size = codes == 0 ? 9 : Integer.parseInt(id.substring(0, codes));
+            int level = DIFFICULTY_CODES.indexOf(id.charAt(codes));
+            Removal removal = Removal.values()["RUM".indexOf(id.charAt(codes + 1))];
+            FullGrid fullGrid = FullGrid.values()["BS".indexOf(id.charAt(codes + 2))];
+            Symmetry symmetry = dash - codes == 4
+                    ? Symmetry.values()[SYMMETRY_CODES.indexOf(id.charAt(codes + 3))] : Symmetry.NONE;
+            long seed = Long.parseUnsignedLong(id.substring(dash + 1), 36);
+            return new SudokuGenerator(BoardShape.forSize(size), DIFFICULTIES[level], removal, fullGrid, symmetry, seed);
+        } catch (RuntimeException ex) {
+            throw new IllegalArgumentException("Malformed puzzle ID: " + id, ex);
         }
+    }
 
-        int[] removalRange = switch (difficulty.toLowerCase()) {
+    /** Seed this puzzle was generated from. */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Short text ID from which {@link #fromPuzzleId} rebuilds this puzzle, e.g.
+     * {@code HUB-1Y2P0IJ32E8E7}: board size (omitted for 9x9), difficulty,
+     * removal and full-grid strategy letters, a symmetry letter unless the
+     * clues have no symmetry, then the seed in base 36.
+     * Null for difficulties other than easy, medium and hard.
+     */
+    public String getPuzzleId() {
+        int level = Arrays.asList(DIFFICULTIES).indexOf(difficulty.toLowerCase(Locale.ROOT));
+        if (level < 0) return null;
+        return (shape.size() == 9 ? "" : String.valueOf(shape.size()))
+                + DIFFICULTY_CODES.charAt(level) + "RUM".charAt(removal.ordinal()) + "BS".charAt(fullGrid.ordinal())
+                + (symmetry == Symmetry.NONE ? "" : String.valueOf(SYMMETRY_CODES.charAt(symmetry.ordinal())))
+                + "-" + Long.toUnsignedString(seed, 36).toUpperCase(Locale.ROOT);
+    }
+
+    /** Time spent making the full solution grid. */
+    public long getFillNanos() {
+        return fillNanos;
+    }
+
+    /** Time spent taking clues out of the full grid, including the uniqueness checks. */
+    public long getRemovalNanos() {
+        return removalNanos;
+    }
+
+    /** Generate a full valid Sudoku grid using backtracking */
+    private void generateFullGrid() {
+        SudokuBoard board = new SudokuBoard(shape);
+        fill(board, random);
+        board.toGrid(solutionGrid);
+    }
+
+    /**
+     * Fill an empty board with a random full grid.
+     * Each attempt gets a node budget and a fresh random start when it runs out:
+     * most 16x16 fills need no backtracking at all, but the rare one that goes
+     * wrong early could otherwise search for many seconds.
+     */
+    static void fill(SudokuBoard board, RandomGenerator random) {
+        for (long budget = 100L * board.shape().cells(); ; budget *= 2) {
+            board.reset();
+            if (fill(board, random, new long[]{budget})) return;
+        }
+    }
+
+    /**
+     * Fill the most constrained empty cell with its candidates in random order and recurse.
+     * Picking the cell with the fewest candidates keeps 16x16 and 25x25 fills
+     * out of the dead ends that row-major order only discovers much later.
+     */
+    private static boolean fill(SudokuBoard board, RandomGenerator random, long[] nodesLeft) {
+        if (board.isFull()) return true; // grid filled
+        if (--nodesLeft[0] < 0) return false; // give up, the caller restarts
+        int cell = mostConstrainedCell(board);
+        for (int mask = board.candidates(cell); mask != 0; ) {
+            // draw a random remaining candidate, without allocating a shuffled list
+            int bit = mask;
+            for (int skip = random.nextInt(Integer.bitCount(mask)); skip > 0; skip--) bit &= bit - 1;
+            bit &= -bit;
+            mask &= ~bit;
+            board.place(cell, SudokuBoard.lowestDigit(bit));
+            if (fill(board, random, nodesLeft)) return true;
+            board.clear(cell); // backtrack
+        }
+        return false; // no valid number found
+    }
+
+    private static int mostConstrainedCell(SudokuBoard board) {
+        int best = -1, bestCount = Integer.MAX_VALUE;
+        for (int cell = 0; cell < board.shape().cells(); cell++) {
+            if (board.get(cell) != 0) continue;
+            int count = Integer.bitCount(board.candidates(cell));
+            if (count < bestCount) {
+                best = cell;
+                bestCount = count;
+                if (count <= 1) break;
+            }
+        }
+        return best;
+    }
+
+    /** Number of cells to remove for a difficulty */
+    private int removalCount(String difficulty) {
+        int[] removalRange = switch (difficulty.toLowerCase(Locale.ROOT)) {
             case "easy" -> new int[]{33, 34, 35, 36, 37};
             case "medium" -> new int[]{40, 41, 42, 43, 44, 45};
             case "hard" -> new int[]{50, 51, 52, 53, 54, 55};
             default -> new int[]{33, 34, 35, 36, 37, 38};
         };
 
-        int totalToRemove = removalRange[random.nextInt(removalRange.length)];
+        // the ranges are for 81 cells; other sizes remove the same fraction
+        return removalRange[random.nextInt(removalRange.length)] * shape.cells() / 81;
+    }
+
+    /**
+     * Visit the cells in shuffled order and take out each clue, together with
+     * its symmetric images, if the puzzle keeps exactly one solution, until
+     * {@code target} cells are empty or every cell was tried. A clue that fails
+     * the check stays for good: removing more clues only adds solutions, so a
+     * full pass ends with a minimal puzzle (for the symmetry).
+     * All checks run on one board that is edited in place.
+     */
+    private void removeCellsUnique(int target) {
+        SudokuBoard board = new SudokuBoard(shape);
+        board.load(solutionGrid);
+        PropagatingSolver counter = new PropagatingSolver();
+
+        int[] order = new int[shape.cells()];
+        for (int i = 0; i < order.length; i++) order[i] = i;
+        for (int i = order.length - 1; i > 0; i--) { // Fisher-Yates
+            int j = random.nextInt(i + 1);
+            int tmp = order[i];
+            order[i] = order[j];
+            order[j] = tmp;
+        }
+
+        int[] group = new int[4];
+        int removed = 0;
+        for (int i = 0; i < order.length && removed < target; i++) {
+            if (board.get(order[i]) == 0) continue; // went with an earlier group
+            int n = symmetry.orbit(shape, order[i], group);
+            for (int k = 0; k < n; k++) board.clear(group[k]);
+            if (!hasOtherSolution(board, counter, group, n)) {
+                removed += n;
+            } else {
+                for (int k = 0; k < n; k++) { // needed for uniqueness
+                    board.place(group[k], solutionGrid[shape.rowOf(group[k])][shape.colOf(group[k])]);
+                }
+            }
+        }
+        board.toGrid(puzzleGrid);
+    }
+
+    /**
+     * Whether the board has a solution other than the solution grid, given that
+     * it had none before the cells in group were cleared. Any other solution
+     * must then differ in one of those cells, so instead of counting solutions
+     * of the whole board only their wrong candidates are tried, each with a
+     * search that stops at the first solution; most die in propagation at once.
+     */
+    private boolean hasOtherSolution(SudokuBoard board, PropagatingSolver counter, int[] group, int n) {
+        for (int k = 0; k < n; k++) {
+            int cell = group[k];
+            int right = SudokuBoard.bit(solutionGrid[shape.rowOf(cell)][shape.colOf(cell)]);
+            for (int mask = board.candidates(cell) & ~right; mask != 0; mask &= mask - 1) {
+                board.place(cell, SudokuBoard.lowestDigit(mask));
+                int found = counter.countSolutions(board, 1);
+                board.clear(cell);
+                if (found > 0) return true;
+            }
+        }
+        return false;
+    }
+
+    /** Remove cells based on difficulty */
+    private void removeCells(String difficulty) {
+        // Copy solution to puzzle grid
+        int size = shape.size();
+        for (int i = 0; i < size; i++) {
+            System.arraycopy(solutionGrid[i], 0, puzzleGrid[i], 0, size);
+        }
+
+        int totalToRemove = removalCount(difficulty);
         int removed = 0;
 
         // ✅ Improvement: use a Set to avoid removing the same cell twice
         Set<String> removedCells = new HashSet<>();
+        int[] group = new int[4];
 
         while (removed < totalToRemove) {
-            int row = random.nextInt(9);
-            int col = random.nextInt(9);
+            int row = random.nextInt(size);
+            int col = random.nextInt(size);
             String key = row + "-" + col;
 
             if (puzzleGrid[row][col] != 0 && !removedCells.contains(key)) {
-                puzzleGrid[row][col] = 0;
-                removedCells.add(key);
-                removed++;
+                int n = symmetry.orbit(shape, shape.cellOf(row, col), group);
+                for (int k = 0; k < n; k++) {
+                    int r = shape.rowOf(group[k]), c = shape.colOf(group[k]);
+                    puzzleGrid[r][c] = 0;
+                    removedCells.add(r + "-" + c);
+                }
+                removed += n;
             }
         }
     }
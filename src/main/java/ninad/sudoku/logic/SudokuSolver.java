@@ -1,54 +1,57 @@
 package ninad.sudoku.logic;
 
+/**
+ * Static entry points for solving. Grids may be 9x9 or any size with a
+ * {@link BoardShape} box layout, e.g. 6x6, 16x16 or 25x25.
+ * Uses plain backtracking by default; pass {@link Mode#PROPAGATION} to apply
+ * naked/hidden singles and minimum-remaining-values branching at every node,
+ * {@link Mode#DANCING_LINKS} for the exact-cover search, or {@link Mode#PARALLEL}
+ * to split the propagating search over the common fork/join pool.
+ */
 public class SudokuSolver {
 
-    private static final int SIZE = 9;
+    public enum Mode { BACKTRACKING, PROPAGATION, DANCING_LINKS, PARALLEL }
 
     public static boolean solve(int[][] grid) {
-        // find first empty cell
-        for (int row = 0; row < SIZE; row++) {
-            for (int col = 0; col < SIZE; col++) {
-                if (grid[row][col] == 0) {
-                    // try all numbers 1–9
-                    for (int num = 1; num <= SIZE; num++) {
-                        if (isSafe(grid, row, col, num)) {
-                            grid[row][col] = num;
-                            if (solve(grid)) {
-                                return true; // solved further down
-                            }
-                            grid[row][col] = 0; // backtrack
-                        }
-                    }
-                    // if no number works, trigger backtrack
-                    return false;
-                }
-            }
-        }
-        // no empty cells left → solved
-        return true;
+        return solve(grid, Mode.BACKTRACKING);
+    }
+
+    public static boolean solve(int[][] grid, Mode mode) {
+        return create(mode).solve(grid);
     }
 
     public static int[][] solveCopy(int[][] grid) {
-        int[][] copy = new int[SIZE][SIZE];
-        for (int i = 0; i < SIZE; i++) {
-            System.arraycopy(grid[i], 0, copy[i], 0, SIZE);
-        }
-        return solve(copy) ? copy : null;
+        return solveCopy(grid, Mode.BACKTRACKING);
     }
 
-    private static boolean isSafe(int[][] grid, int row, int col, int num) {
-        // row + col check
-        for (int i = 0; i < SIZE; i++) {
-            if (grid[row][i] == num || grid[i][col] == num) return false;
-        }
-        // 3x3 subgrid check
-        int startRow = (row / 3) * 3;
-        int startCol = (col / 3) * 3;
-        for (int r = 0; r < 3; r++) {
-            for (int c = 0; c < 3; c++) {
-                if (grid[startRow + r][startCol + c] == num) return false;
-            }
+    public static int[][] solveCopy(int[][] grid, Mode mode) {
+        int[][] copy = new int[grid.length][grid.length];
+        for (int i = 0; i < grid.length; i++) {
+            System.arraycopy(grid[i], 0, copy[i], 0, grid.length);
         }
-        return true;
+        return solve(copy, mode) ? copy : null;
+    }
+
+    /**
+     * Count solutions of the grid, stopping as soon as {@code limit} are found.
+     * Use a limit of 2 to tell "no solution" / "unique" / "ambiguous" apart.
+     */
+    public static int countSolutions(int[][] grid, int limit) {
+        return new PropagatingSolver().countSolutions(grid, limit);
+    }
+
+    /** Check if the grid has exactly one solution. */
+    public static boolean hasUniqueSolution(int[][] grid) {
+        return countSolutions(grid, 2) == 1;
+    }
+
+    /** New solver instance for the mode, e.g. to read its node count afterwards. */
+    public static Solver create(Mode mode) {
+        return switch (mode) {
+            case BACKTRACKING -> new BacktrackingSolver();
+            case PROPAGATION -> new PropagatingSolver();
+            case DANCING_LINKS -> new DancingLinksSolver();
+            case PARALLEL -> new ParallelSolver();
+        };
     }
 }
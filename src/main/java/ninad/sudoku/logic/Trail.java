@@ -0,0 +1,140 @@
+package ninad.sudoku.logic;
+
+import java.util.Arrays;
+
+/**
+ * Undo log of placements on a {@link SudokuBoard}, together with the
+ * naked/hidden single propagation that the searching solvers run at every node.
+ * Preallocated for one board shape: at most every cell is placed once.
+ */
+final class Trail {
+
+    private final BoardShape shape;
+    private final int[] cells;
+    private int size;
+
+    private final int[] places;
+    /** Result of {@link #pickDigitPlaces}. */
+    int branchUnit, branchDigit;
+
+    Trail(BoardShape shape) {
+        this.shape = shape;
+        this.cells = new int[shape.cells()];
+        this.places = new int[shape.size() + 1];
+    }
+
+    BoardShape shape() {
+        return shape;
+    }
+
+    /** Current length, to pass to {@link #undo} later. */
+    int mark() {
+        return size;
+    }
+
+    /** Forget all entries without touching the board. */
+    void reset() {
+        size = 0;
+    }
+
+    void place(SudokuBoard board, int cell, int num) {
+        board.place(cell, num);
+        cells[size++] = cell;
+    }
+
+    /** Clear every cell placed since the mark. */
+    void undo(SudokuBoard board, int mark) {
+        while (size > mark) board.clear(cells[--size]);
+    }
+
+    /** Place naked and hidden singles to a fixpoint. Returns false on a contradiction. */
+    boolean propagate(SudokuBoard board) {
+        int cellCount = shape.cells(), units = shape.unitCount(), allDigits = shape.allDigits();
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+
+            // naked singles
+            for (int cell = 0; cell < cellCount; cell++) {
+                if (board.get(cell) != 0) continue;
+                int mask = board.candidates(cell);
+                if (mask == 0) return false;
+                if ((mask & (mask - 1)) == 0) {
+                    place(board, cell, SudokuBoard.lowestDigit(mask));
+                    changed = true;
+                }
+            }
+
+            // hidden singles
+            for (int unit = 0; unit < units; unit++) {
+                int[] unitCells = shape.unit(unit);
+                int once = 0, twice = 0, placed = 0;
+                for (int cell : unitCells) {
+                    int num = board.get(cell);
+                    if (num != 0) {
+                        placed |= SudokuBoard.bit(num);
+                    } else {
+                        int mask = board.candidates(cell);
+                        twice |= once & mask;
+                        once |= mask;
+                    }
+                }
+                if ((once | placed) != allDigits) return false; // a digit has no place
+                for (int hidden = once & ~twice; hidden != 0; hidden &= hidden - 1) {
+                    int bit = hidden & -hidden;
+                    int target = -1;
+                    for (int cell : unitCells) {
+                        if (board.get(cell) == 0 && (board.candidates(cell) & bit) != 0) {
+                            target = cell;
+                            break;
+                        }
+                    }
+                    if (target < 0) return false; // lost its only cell to an earlier placement
+                    place(board, target, SudokuBoard.lowestDigit(bit));
+                    changed = true;
+                }
+            }
+        }
+        return true;
+    }
+
+    /** Empty cell with the fewest candidates, -1 if the board is full. */
+    static int pickCell(SudokuBoard board) {
+        int best = -1, bestCount = Integer.MAX_VALUE;
+        for (int cell = 0; cell < board.shape().cells(); cell++) {
+            if (board.get(cell) != 0) continue;
+            int count = Integer.bitCount(board.candidates(cell));
+            if (count < bestCount) {
+                best = cell;
+                bestCount = count;
+                if (count <= 2) break;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Find the unit and digit with the fewest possible places (at least two),
+     * storing them in branchUnit/branchDigit. Returns the number of places.
+     */
+    int pickDigitPlaces(SudokuBoard board) {
+        int best = Integer.MAX_VALUE;
+        for (int unit = 0; unit < shape.unitCount() && best > 2; unit++) {
+            Arrays.fill(places, 0);
+            for (int cell : shape.unit(unit)) {
+                if (board.get(cell) != 0) continue;
+                for (int mask = board.candidates(cell); mask != 0; mask &= mask - 1) {
+                    places[SudokuBoard.lowestDigit(mask)]++;
+                }
+            }
+            for (int num = 1; num <= shape.size(); num++) {
+                if (places[num] >= 2 && places[num] < best) {
+                    best = places[num];
+                    branchUnit = unit;
+                    branchDigit = num;
+                }
+            }
+        }
+        return best;
+    }
+}
@@ -0,0 +1,52 @@
+package ninad.sudoku.logic;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Vector API kernel of {@link GridValidator#validateAll}: each lane checks one grid.
+ * A block of grids is first transposed so that the same cell of every grid
+ * sits in consecutive ints; then, for each unit, the digit bits of its cells
+ * are OR-ed together lane-wise and any bit seen twice marks the lane invalid.
+ * Only loaded reflectively, because it needs the incubator module.
+ */
+final class VectorGridValidator implements GridValidator.Batch {
+
+    private static final VectorSpecies<Integer> SPECIES = IntVector.SPECIES_PREFERRED;
+
+    @Override
+    public int validate(byte[] grids, int count, BoardShape shape, boolean[] results) {
+        int lanes = SPECIES.length(), cells = shape.cells(), size = shape.size();
+        int[] block = new int[cells * lanes];
+        IntVector one = IntVector.broadcast(SPECIES, 1);
+        int valid = 0, g = 0;
+        for (; g + lanes <= count; g += lanes) {
+            for (int lane = 0; lane < lanes; lane++) {
+                int base = (g + lane) * cells;
+                for (int cell = 0; cell < cells; cell++) block[cell * lanes + lane] = grids[base + cell];
+            }
+
+            VectorMask<Integer> bad = SPECIES.maskAll(false);
+            for (int unit = 0; unit < shape.unitCount(); unit++) {
+                IntVector seen = IntVector.zero(SPECIES), twice = IntVector.zero(SPECIES);
+                for (int cell : shape.unit(unit)) {
+                    IntVector value = IntVector.fromArray(SPECIES, block, cell * lanes);
+                    // every cell is in exactly one row, so the range check runs on rows only
+                    if (unit < size) bad = bad.or(value.compare(VectorOperators.UNSIGNED_GT, size));
+                    // (1 << v) >>> 1: digit d gives bit d-1, an empty cell gives 0
+                    IntVector bits = one.lanewise(VectorOperators.LSHL, value).lanewise(VectorOperators.LSHR, 1);
+                    twice = twice.or(seen.and(bits));
+                    seen = seen.or(bits);
+                }
+                bad = bad.or(twice.compare(VectorOperators.NE, 0));
+            }
+            for (int lane = 0; lane < lanes; lane++) {
+                results[g + lane] = !bad.laneIsSet(lane);
+                if (results[g + lane]) valid++;
+            }
+        }
+        return valid + GridValidator.validateScalar(grids, g, count, shape, results);
+    }
+}
@@ -7,18 +7,26 @@ import javafx.fxml.FXML;
 import javafx.geometry.Pos;
 import javafx.scene.control.Button;
 import javafx.scene.control.Label;
+import javafx.scene.control.Slider;
 import javafx.scene.control.TextField;
 import javafx.scene.control.TextFormatter;
+import javafx.scene.control.ToggleButton;
 import javafx.scene.layout.GridPane;
 import javafx.scene.layout.VBox;
 import javafx.util.Duration;
 import ninad.sudoku.Main;
+import ninad.sudoku.logic.GameState;
+import ninad.sudoku.logic.HintEngine;
+import ninad.sudoku.logic.MoveHistory;
+import ninad.sudoku.logic.PencilMarks;
+import ninad.sudoku.logic.SavedGame;
 import ninad.sudoku.logic.SudokuGenerator;
-import ninad.sudoku.logic.SudokuValidator;
 
 import java.io.IOException;
+import java.util.Locale;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import java.util.function.BooleanSupplier;
 import java.util.function.UnaryOperator;
 
 public class GameScreenController {
@@ -26,55 +34,125 @@ public class GameScreenController {
     private static final Logger LOGGER = Logger.getLogger(GameScreenController.class.getName());
 
     @FXML private GridPane sudokuGrid;
-    @FXML private Label timerLabel, pauseTimerLabel, pauseMovesLabel, scoreLabel;
-    @FXML private Button pauseButton;
-    @FXML private Button overlayResumeButton, overlayGiveUpButton;
+    @FXML private Label timerLabel, pauseTimerLabel, pauseMovesLabel, scoreLabel, hintLabel;
+    @FXML private Button pauseButton, hintButton, fillNotesButton, undoButton, redoButton;
+    @FXML private ToggleButton notesButton;
+    @FXML private Slider historySlider;
+    @FXML private Button overlayResumeButton, overlayGiveUpButton, overlayMenuButton;
     @FXML private VBox pauseOverlay;
 
     private static final int SIZE = 9;
     private static final int CELL_SIZE = 50;
+    private static final String NOTES_STYLE = "-fx-font-size: 9px; -fx-prompt-text-fill: #607d8b;";
 
     private int moves = 0;
     private int elapsedSeconds = 0;
-    private int score = 0;
-    private int streak = 0;
 
+    private long gameId;
+    private String difficulty;
     private int basePoints, streakIncrement, timePenalty;
 
     private int[][] puzzleGrid;
     private int[][] solutionGrid;
-    private int[][] userGrid;
-
-    private int totalBlanks = 0;
-    private int correctCount = 0;
+    private GameState userState;
+    private HintEngine hintEngine;
+    private PencilMarks pencilMarks;
+    private MoveHistory history;
+    private boolean replaying;          // undo/redo is writing into the cells
+    private boolean syncingHistory;     // the slider is being moved to match the history
+    private final TextField[][] cells = new TextField[SIZE][SIZE];
 
     private Timeline timer;
 
     @FXML
     public void initialize() {
-        final String difficulty = "easy"; // can be dynamic
-        SudokuGenerator generator = new SudokuGenerator(difficulty);
-        puzzleGrid = generator.getPuzzleGrid();
-        solutionGrid = generator.getSolutionGrid();
-        userGrid = new int[SIZE][SIZE];
-
-        for (int r = 0; r < SIZE; r++)
-            for (int c = 0; c < SIZE; c++)
-                if (puzzleGrid[r][c] == 0) totalBlanks++;
-
-        switch (difficulty.toLowerCase()) {
-            case "easy" -> { basePoints = 5; streakIncrement = 1; timePenalty = 10; }
+        buildSudokuGrid();
+
+        pauseButton.setOnAction(e -> pauseGame());
+        hintButton.setOnAction(e -> showHint());
+        fillNotesButton.setOnAction(e -> {
+            if (history.fillNotes()) save();
+            updateHistoryControls();
+        });
+        undoButton.setOnAction(e -> replay(history::undo));
+        redoButton.setOnAction(e -> replay(history::redo));
+        historySlider.valueProperty().addListener((obs, oldVal, newVal) -> {
+            int point = (int) Math.round(newVal.doubleValue());
+            if (syncingHistory || point == history.position()) return;
+            replay(() -> {
+                history.jumpTo(point);
+                return true;
+            });
+        });
+        overlayResumeButton.setOnAction(e -> resumeGame());
+        overlayGiveUpButton.setOnAction(e -> giveUp());
+        overlayMenuButton.setOnAction(e -> leaveToMenu());
+    }
+
+    /** Start a fresh game with a puzzle from the pool. */
+    public void startNewGame() {
+        difficulty = "easy"; // can be dynamic
+        SudokuGenerator generator = Main.getPuzzlePool().take(difficulty);
+        gameId = System.currentTimeMillis();
+        start(generator.getPuzzleGrid(), generator.getSolutionGrid(), 0, 0);
+    }
+
+    /** Continue a saved game where the player left it. */
+    public void resume(SavedGame saved) {
+        gameId = saved.getId();
+        difficulty = saved.getDifficulty();
+        moves = saved.getMoves();
+        elapsedSeconds = saved.getElapsedSeconds();
+        start(saved.getPuzzle(), saved.getSolution(), saved.getScore(), saved.getStreak());
+
+        // restored entries are where the game starts, not moves to undo
+        int[][] digits = saved.getDigits();
+        replaying = true;
+        try {
+            for (int row = 0; row < SIZE; row++) {
+                for (int col = 0; col < SIZE; col++) {
+                    if (userState.isGiven(row, col)) continue;
+                    if (digits[row][col] != 0 && userState.canPlace(row, col, digits[row][col])) {
+                        userState.set(row, col, digits[row][col]);
+                        showValue(row, col, digits[row][col]);
+                    }
+                    pencilMarks.set(row, col, saved.getNotes(row, col));
+                }
+            }
+        } finally {
+            replaying = false;
+        }
+    }
+
+    /** Write the game behind the player's back; the save store does the I/O off the FX thread. */
+    public void save() {
+        if (history == null) return;
+        Main.getSaveStore().save(SavedGame.capture(gameId, difficulty, puzzleGrid, solutionGrid, userState,
+                pencilMarks, elapsedSeconds, history.score(), history.streak(), moves));
+    }
+
+    private void start(int[][] puzzle, int[][] solution, int score, int streak) {
+        puzzleGrid = puzzle;
+        solutionGrid = solution;
+        userState = new GameState(puzzleGrid);
+        hintEngine = new HintEngine(puzzleGrid, solutionGrid);
+        pencilMarks = new PencilMarks(userState.shape());
+        pencilMarks.setListener(this::showNotes);
+        history = new MoveHistory(userState, pencilMarks, score, streak);
+        history.setListener(this::showValue);
+
+        switch (difficulty.toLowerCase(Locale.ROOT)) {
             case "medium" -> { basePoints = 7; streakIncrement = 3; timePenalty = 7; }
             case "hard" -> { basePoints = 10; streakIncrement = 5; timePenalty = 5; }
+            default -> { basePoints = 5; streakIncrement = 1; timePenalty = 10; } // easy, or unknown from a save
         }
 
-        buildSudokuGrid();
         populateGrid();
+        if (timerLabel != null) timerLabel.setText(formatTime(elapsedSeconds));
+        updateScore();
+        updateHistoryControls();
         startTimer();
-
-        pauseButton.setOnAction(e -> pauseGame());
-        overlayResumeButton.setOnAction(e -> resumeGame());
-        overlayGiveUpButton.setOnAction(e -> giveUp());
+        Main.setActiveGame(this);
     }
 
     private void buildSudokuGrid() {
@@ -86,16 +164,26 @@ public class GameScreenController {
                 cell.setAlignment(Pos.CENTER);
                 cell.setStyle(getCellBorderStyle(row, col) + "-fx-font-weight: bold; -fx-font-size: 18px; -fx-text-fill: #222222;");
 
-                // Single-digit filter
+                // Single-digit filter; in notes mode a digit toggles a note instead
+                int r = row, c = col;
                 UnaryOperator<TextFormatter.Change> filter = change -> {
                     String text = change.getText();
                     if (!text.matches("[1-9]?")) return null;
+                    if (notesButton.isSelected() && !replaying && !text.isEmpty()) {
+                        if (cell.getText().isEmpty()) {
+                            history.toggleNote(r, c, text.charAt(0) - '0');
+                            save();
+                            updateHistoryControls();
+                        }
+                        return null;
+                    }
                     String newText = change.getControlNewText();
                     return newText.length() > 1 ? null : change;
                 };
                 cell.setTextFormatter(new TextFormatter<>(filter));
 
                 sudokuGrid.add(cell, col, row);
+                cells[row][col] = cell;
             }
         }
     }
@@ -103,45 +191,44 @@ public class GameScreenController {
     private void populateGrid() {
         for (int row = 0; row < SIZE; row++) {
             for (int col = 0; col < SIZE; col++) {
-                TextField cell = (TextField) getNodeByRowColumnIndex(row, col, sudokuGrid);
-                if (cell == null) continue;
-
+                TextField cell = cells[row][col];
                 int value = puzzleGrid[row][col];
                 if (value != 0) {
                     cell.setText(String.valueOf(value));
                     cell.setDisable(true);
                     cell.setStyle(getCellBorderStyle(row, col) + "-fx-background-color: #e0e0e0; -fx-font-weight: bold; -fx-font-size: 18px;");
-                    userGrid[row][col] = value;
                 } else {
                     int r = row, c = col;
                     cell.textProperty().addListener((obs, oldVal, newVal) -> {
+                        if (replaying) return;
                         if (newVal.isEmpty()) {
-                            if (userGrid[r][c] != 0) correctCount--;
-                            userGrid[r][c] = 0;
-                            streak = 0;
+                            if (history.play(r, c, 0, 0, 0)) save();
                             updateScore();
-                            cell.setStyle(getCellBorderStyle(r, c));
+                            updateHistoryControls();
+                            cell.setStyle(getCellBorderStyle(r, c) + NOTES_STYLE);
                             return;
                         }
                         try {
                             int val = Integer.parseInt(newVal);
                             moves++;
-                            if (isValidMove(r, c, val)) {
-                                if (userGrid[r][c] == 0) correctCount++;
-                                streak++;
+                            if (userState.canPlace(r, c, val)) {
+                                int streak = history.streak() + 1;
                                 int points = basePoints + streakIncrement * (streak - 1);
-                                score += points;
-                                userGrid[r][c] = val;
+                                history.play(r, c, val, points, streak);
                                 cell.setStyle(getCellBorderStyle(r, c) + "-fx-background-color: #c8e6c9;");
                             } else {
-                                streak = 0;
-                                userGrid[r][c] = 0;
+                                // the wrong digit stays on screen for a second but never enters the game
+                                history.play(r, c, 0, 0, 0);
                                 cell.setStyle(getCellBorderStyle(r, c) + "-fx-background-color: #ffcdd2;");
                                 PauseTransition pt = new PauseTransition(Duration.seconds(1));
-                                pt.setOnFinished(event -> cell.setText(""));
+                                pt.setOnFinished(event -> {
+                                    if (cell.getText().equals(newVal)) cell.setText("");
+                                });
                                 pt.play();
                             }
                             updateScore();
+                            updateHistoryControls();
+                            save();
                             checkAutoWin();
                         } catch (NumberFormatException ex) {
                             cell.setText("");
@@ -151,11 +238,7 @@ public class GameScreenController {
                     cell.focusedProperty().addListener((obs, oldVal, newVal) -> {
                         if (!newVal && !cell.getText().isEmpty()) {
                             int val = Integer.parseInt(cell.getText());
-                            if (!isValidMove(r, c, val)) {
-                                cell.setText("");
-                                cell.setStyle(getCellBorderStyle(r, c));
-                                userGrid[r][c] = 0;
-                            }
+                            if (!userState.canPlace(r, c, val)) cell.setText("");
                         }
                     });
                 }
@@ -163,21 +246,65 @@ public class GameScreenController {
         }
     }
 
-    private boolean isValidMove(int row, int col, int val) {
-        int[][] tempGrid = new int[SIZE][SIZE];
-        for (int r = 0; r < SIZE; r++)
-            System.arraycopy(userGrid[r], 0, tempGrid[r], 0, SIZE);
-        tempGrid[row][col] = val;
-        return SudokuValidator.validateSingle(tempGrid, row, col);
+    /** Run undo, redo or a jump, letting the history write into the cells. */
+    private void replay(BooleanSupplier step) {
+        replaying = true;
+        try {
+            if (!step.getAsBoolean()) return;
+        } finally {
+            replaying = false;
+            updateHistoryControls();
+        }
+        updateScore();
+        save();
+    }
+
+    /** Enable undo and redo only when there is something to take back or apply, and move the slider to the current point. */
+    private void updateHistoryControls() {
+        undoButton.setDisable(!history.canUndo());
+        redoButton.setDisable(!history.canRedo());
+        syncingHistory = true;
+        try {
+            historySlider.setMax(history.size());
+            historySlider.setValue(history.position());
+            historySlider.setDisable(history.size() == 0);
+        } finally {
+            syncingHistory = false;
+        }
+    }
+
+    /** Follow a digit change from the history; during undo/redo also show it in the cell. */
+    private void showValue(int row, int col, int digit) {
+        hintEngine.set(row, col, digit);
+        if (!replaying) return;
+        TextField cell = cells[row][col];
+        cell.setText(digit == 0 ? "" : String.valueOf(digit));
+        cell.setStyle(getCellBorderStyle(row, col) + (digit == 0 ? NOTES_STYLE : "-fx-background-color: #c8e6c9;"));
     }
 
-    private javafx.scene.Node getNodeByRowColumnIndex(int row, int column, GridPane gridPane) {
-        for (javafx.scene.Node node : gridPane.getChildren()) {
-            Integer r = GridPane.getRowIndex(node);
-            Integer c = GridPane.getColumnIndex(node);
-            if (r != null && c != null && r == row && c == column) return node;
+    /** Highlight the cell of the next logical move and explain it; the digit is left to the player. */
+    private void showHint() {
+        HintEngine.Hint hint = hintEngine.next();
+        if (hint == null) {
+            if (hintLabel != null) hintLabel.setText("No logical move found.");
+            return;
         }
-        return null;
+        if (hintLabel != null) hintLabel.setText(hint.getExplanation());
+        TextField cell = cells[hint.getRow()][hint.getCol()];
+        String color = hint.isMistake() ? "#ffcdd2" : "#fff59d";
+        cell.setStyle(getCellBorderStyle(hint.getRow(), hint.getCol()) + "-fx-background-color: " + color + ";");
+        cell.requestFocus();
+    }
+
+    /** Show a cell's notes as its prompt text, which is only visible while the cell is empty. */
+    private void showNotes(int row, int col, int mask) {
+        StringBuilder digits = new StringBuilder();
+        for (int digit = 1; digit <= SIZE; digit++) {
+            if ((mask & (1 << (digit - 1))) != 0) digits.append(digit);
+        }
+        TextField cell = cells[row][col];
+        cell.setPromptText(digits.toString());
+        if (cell.getText().isEmpty()) cell.setStyle(getCellBorderStyle(row, col) + NOTES_STYLE);
     }
 
     private String getCellBorderStyle(int row, int col) {
@@ -192,6 +319,7 @@ public class GameScreenController {
         if (pauseMovesLabel != null) pauseMovesLabel.setText("Moves: " + moves);
         if (pauseOverlay != null) pauseOverlay.setVisible(true);
         if (timer != null) timer.pause();
+        save();
     }
 
     private void resumeGame() {
@@ -199,8 +327,25 @@ public class GameScreenController {
         if (timer != null) timer.play();
     }
 
-    private void giveUp() {
+    /** Back to the main menu; the game is saved on the way and can be resumed from there. */
+    private void leaveToMenu() {
         if (timer != null) timer.stop();
+        try {
+            Main.showMainMenu();
+        } catch (IOException ex) {
+            LOGGER.log(Level.SEVERE, "Failed to go back to main menu", ex);
+        }
+    }
+
+    /** The game is over: nothing left to resume. */
+    private void finish() {
+        if (timer != null) timer.stop();
+        Main.setActiveGame(null);
+        Main.getSaveStore().delete(gameId);
+    }
+
+    private void giveUp() {
+        finish();
         if (pauseOverlay != null) pauseOverlay.setVisible(false);
         try {
             Main.showGiveUpScreen(puzzleGrid, solutionGrid);
@@ -214,6 +359,7 @@ public class GameScreenController {
             elapsedSeconds++;
             if (timerLabel != null) timerLabel.setText(formatTime(elapsedSeconds));
             updateScore();
+            if (elapsedSeconds % 30 == 0) save(); // keep the clock roughly current even without moves
         }));
         timer.setCycleCount(Timeline.INDEFINITE);
         timer.play();
@@ -227,14 +373,14 @@ public class GameScreenController {
 
     private void updateScore() {
         int timeDeduction = elapsedSeconds / timePenalty;
-        int displayScore = score - timeDeduction;
+        int displayScore = history.score() - timeDeduction;
         if (displayScore < 0) displayScore = 0;
         if (scoreLabel != null) scoreLabel.setText("Score: " + displayScore);
     }
 
     private void checkAutoWin() {
-        if (correctCount >= totalBlanks) {
-            if (timer != null) timer.stop();
+        if (userState.isSolved()) {
+            finish();
             int finalScore = 0;
             if (scoreLabel != null) {
                 try { finalScore = Integer.parseInt(scoreLabel.getText().replace("Score: ", "")); }
@@ -1,10 +1,13 @@
 package ninad.sudoku.ui;
 
+import javafx.application.Platform;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Scene;
 import javafx.scene.control.Button;
 import javafx.stage.Stage;
+import ninad.sudoku.Main;
+import ninad.sudoku.logic.SavedGame;
 
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -13,6 +16,9 @@ public class MainScreenController {
 
     private static final Logger LOGGER = Logger.getLogger(MainScreenController.class.getName());
 
+    @FXML
+    private Button resumeButton;
+
     @FXML
     private Button playButton;
 
@@ -22,20 +28,46 @@ public class MainScreenController {
     @FXML
     private Button exitButton;
 
+    private SavedGame lastGame;
+
     @FXML
     public void initialize() {
         if (playButton != null)
-            playButton.setOnAction(e -> openGameScreen());
+            playButton.setOnAction(e -> openGameScreen(null));
+        if (resumeButton != null) {
+            resumeButton.setOnAction(e -> openGameScreen(lastGame));
+            findLastGame();
+        }
         if (solveButton != null)
             solveButton.setOnAction(e -> openSolveScreen());
         if (exitButton != null)
-            exitButton.setOnAction(e -> System.exit(0));
+            exitButton.setOnAction(e -> Platform.exit()); // runs Main.stop, which finishes pending saves
+    }
+
+    /** Offer the most recent saved game once the save store has read it in the background. */
+    private void findLastGame() {
+        Main.getSaveStore().loadLatest().whenComplete((game, error) -> Platform.runLater(() -> {
+            if (error != null) {
+                LOGGER.log(Level.WARNING, "Failed to read the last saved game", error);
+                return;
+            }
+            if (game == null) return;
+            lastGame = game;
+            int seconds = game.getElapsedSeconds();
+            resumeButton.setText(String.format("Resume (%s, %02d:%02d)", game.getDifficulty(), seconds / 60, seconds % 60));
+            resumeButton.setManaged(true);
+            resumeButton.setVisible(true);
+        }));
     }
 
-    private void openGameScreen() {
+    /** Open the game screen with a new game, or with the saved one if given. */
+    private void openGameScreen(SavedGame saved) {
         try {
             FXMLLoader loader = new FXMLLoader(getClass().getResource("/ninad/sudoku/ui/GameScreen.fxml"));
             Scene scene = new Scene(loader.load());
+            GameScreenController controller = loader.getController();
+            if (saved != null) controller.resume(saved);
+            else controller.startNewGame();
             Stage stage = (Stage) playButton.getScene().getWindow();
             stage.setScene(scene);
             stage.setTitle("Sudoku Master - Play");
@@ -1,10 +1,13 @@
 package ninad.sudoku.ui;
 
+import javafx.animation.Animation;
 import javafx.animation.KeyFrame;
 import javafx.animation.Timeline;
+import javafx.application.Platform;
 import javafx.fxml.FXML;
 import javafx.geometry.Pos;
 import javafx.scene.control.Button;
+import javafx.scene.control.ChoiceBox;
 import javafx.scene.control.Label;
 import javafx.scene.control.TextField;
 import javafx.scene.control.TextFormatter;
@@ -13,8 +16,10 @@ import javafx.scene.text.Font;
 import javafx.scene.text.FontWeight;
 import javafx.util.Duration;
 import ninad.sudoku.Main;
+import ninad.sudoku.logic.BoardShape;
+import ninad.sudoku.logic.GameState;
+import ninad.sudoku.logic.SolveService;
 import ninad.sudoku.logic.SudokuSolver;
-import ninad.sudoku.logic.SudokuValidator;
 
 import java.awt.Point;
 import java.util.ArrayList;
@@ -30,14 +35,27 @@ public class SolveScreenController {
     @FXML private GridPane sudokuGrid;
     @FXML private Label statusLabel;
     @FXML private Button autoSolveButton, backButton;
+    @FXML private ChoiceBox<String> solverChoice;
 
     private static final int SIZE = 9;
     private static final int CELL_SIZE = 50;
     private static final String FONT_FAMILY = "System";
     private static final int FONT_SIZE = 18;
+    /** Solver choices; each of them stops when the player goes back. */
+    private static final String ITERATIVE = "Iterative", DANCING_LINKS = "Dancing Links", PARALLEL = "Parallel",
+            PROPAGATION = "Propagation", BACKTRACKING = "Backtracking";
 
+    /** Shared by all solve screens; its daemon thread lives as long as the application. */
+    private static final SolveService SOLVE_SERVICE = new SolveService();
+
+    /** What the player typed, conflicts included; kept in step with the text fields. */
+    private final GameState enteredState = new GameState(BoardShape.STANDARD);
+    private final TextField[][] cells = new TextField[SIZE][SIZE];
+
+    private SolveService.Job solveJob;
     private int[][] solutionGrid;
     private Timeline fillTimeline;
+    private Timeline progressTimeline;
 
     @FXML
     public void initialize() {
@@ -70,12 +88,14 @@ public class SolveScreenController {
                 cell.focusedProperty().addListener((obs, oldVal, newVal) -> handleCellFocusLost(cell, r, c, baseStyle));
 
                 sudokuGrid.add(cell, col, row);
+                cells[row][col] = cell;
             }
         }
     }
 
     private void handleCellInput(TextField cell, int row, int col, String baseStyle, String newVal) {
         if (newVal == null || newVal.isEmpty()) {
+            enteredState.set(row, col, 0);
             cell.setStyle(baseStyle);
             return;
         }
@@ -88,7 +108,7 @@ public class SolveScreenController {
             return;
         }
 
-        if (isValidMove(row, col, val)) {
+        if (enteredState.set(row, col, val)) {
             cell.setStyle(getCellBorderStyle(row, col)
                     + "-fx-background-color: #c8e6c9; -fx-font-weight: bold; -fx-font-size: "
                     + FONT_SIZE + "px; -fx-text-fill: #222222;");
@@ -101,15 +121,12 @@ public class SolveScreenController {
         String txt = cell.getText();
         if (txt == null || txt.isEmpty()) {
             cell.setStyle(baseStyle);
+        } else if (enteredState.isConflicting(row, col)) {
+            flashRed(cell, baseStyle);
         } else {
-            int val = Integer.parseInt(txt);
-            if (!isValidMove(row, col, val)) {
-                flashRed(cell, baseStyle);
-            } else {
-                cell.setStyle(getCellBorderStyle(row, col)
-                        + "-fx-background-color: #c8e6c9; -fx-font-weight: bold; -fx-font-size: "
-                        + FONT_SIZE + "px; -fx-text-fill: #222222;");
-            }
+            cell.setStyle(getCellBorderStyle(row, col)
+                    + "-fx-background-color: #c8e6c9; -fx-font-weight: bold; -fx-font-size: "
+                    + FONT_SIZE + "px; -fx-text-fill: #222222;");
         }
     }
 
@@ -122,24 +139,6 @@ public class SolveScreenController {
         timeline.play();
     }
 
-    private boolean isValidMove(int row, int col, int val) {
-        int[][] currentGrid = getCurrentGrid();
-        currentGrid[row][col] = val;
-        return SudokuValidator.validateSingle(currentGrid, row, col);
-    }
-
-    private int[][] getCurrentGrid() {
-        int[][] grid = new int[SIZE][SIZE];
-        for (int row = 0; row < SIZE; row++) {
-            for (int col = 0; col < SIZE; col++) {
-                TextField cell = (TextField) getNodeByRowColumnIndex(row, col, sudokuGrid);
-                String text = (cell != null) ? cell.getText().trim() : "";
-                grid[row][col] = text.isEmpty() ? 0 : Integer.parseInt(text);
-            }
-        }
-        return grid;
-    }
-
     private String getCellBorderStyle(int row, int col) {
         int top = 1, right = 1, bottom = 1, left = 1;
         if (row == 2 || row == 5) bottom = 2;
@@ -148,37 +147,67 @@ public class SolveScreenController {
     }
 
     private void setupButtons() {
+        solverChoice.getItems().setAll(ITERATIVE, DANCING_LINKS, PARALLEL, PROPAGATION, BACKTRACKING);
+        solverChoice.setValue(ITERATIVE);
         autoSolveButton.setOnAction(e -> startAutoSolve());
         backButton.setOnAction(e -> goBack());
     }
 
     private void startAutoSolve() {
         autoSolveButton.setDisable(true);
-        backButton.setDisable(true);
         statusLabel.setText("Solving...");
 
-        int[][] userGrid = getCurrentGrid();
-        if (!SudokuValidator.isValid(userGrid)) {
+        if (!enteredState.isValid()) {
             statusLabel.setText("Puzzle has conflicts!");
             autoSolveButton.setDisable(false);
-            backButton.setDisable(false);
-            return;
-        }
-
-        solutionGrid = SudokuSolver.solveCopy(userGrid);
-        if (solutionGrid == null) {
-            statusLabel.setText("No solution found!");
-            autoSolveButton.setDisable(false);
-            backButton.setDisable(false);
             return;
         }
+        int[][] userGrid = enteredState.toGrid();
+
+        // the search runs on the solver thread; the FX thread only polls its progress
+        sudokuGrid.setDisable(true);
+        SolveService.Job job = switch (solverChoice.getValue()) {
+            case DANCING_LINKS -> SOLVE_SERVICE.submit(userGrid, SudokuSolver.Mode.DANCING_LINKS);
+            case PARALLEL -> SOLVE_SERVICE.submit(userGrid, SudokuSolver.Mode.PARALLEL);
+            case PROPAGATION -> SOLVE_SERVICE.submit(userGrid, SudokuSolver.Mode.PROPAGATION);
+            case BACKTRACKING -> SOLVE_SERVICE.submit(userGrid, SudokuSolver.Mode.BACKTRACKING);
+            default -> SOLVE_SERVICE.submit(userGrid);
+        };
+        solveJob = job;
+        progressTimeline = new Timeline(new KeyFrame(Duration.millis(100),
+                e -> statusLabel.setText(String.format("Solving... %,d nodes", job.getNodeCount()))));
+        progressTimeline.setCycleCount(Animation.INDEFINITE);
+        progressTimeline.play();
+
+        job.result().whenComplete((solution, error) -> Platform.runLater(() -> {
+            if (solveJob != job) return; // left the screen meanwhile
+            solveJob = null;
+            progressTimeline.stop();
+            sudokuGrid.setDisable(false);
+            if (error != null) {
+                if (!job.isCancelled()) {
+                    LOGGER.log(Level.WARNING, "Auto-solve failed", error);
+                    statusLabel.setText("Solving failed!");
+                }
+                autoSolveButton.setDisable(false);
+                return;
+            }
+            if (solution == null) {
+                statusLabel.setText("No solution found!");
+                autoSolveButton.setDisable(false);
+                return;
+            }
+            showSolution(userGrid, solution);
+        }));
+    }
 
+    private void showSolution(int[][] userGrid, int[][] solution) {
+        solutionGrid = solution;
         boolean[][] originallyFilled = new boolean[SIZE][SIZE];
         for (int r = 0; r < SIZE; r++) {
             for (int c = 0; c < SIZE; c++) {
                 originallyFilled[r][c] = userGrid[r][c] != 0;
-                TextField cell = (TextField) getNodeByRowColumnIndex(r, c, sudokuGrid);
-                if (cell == null) continue;
+                TextField cell = cells[r][c];
                 if (originallyFilled[r][c]) {
                     cell.setStyle(getCellBorderStyle(r, c)
                             + "-fx-background-color: #e0e0e0; -fx-font-weight: bold; -fx-font-size: "
@@ -201,8 +230,7 @@ public class SolveScreenController {
             statusLabel.setText("Solved!");
             for (int r = 0; r < SIZE; r++) {
                 for (int c = 0; c < SIZE; c++) {
-                    TextField cell = (TextField) getNodeByRowColumnIndex(r, c, sudokuGrid);
-                    if (cell == null) continue;
+                    TextField cell = cells[r][c];
                     if (originallyFilled[r][c]) {
                         cell.setStyle(getCellBorderStyle(r, c)
                                 + "-fx-background-color: #e0e0e0; -fx-font-weight: bold; -fx-font-size: "
@@ -213,7 +241,6 @@ public class SolveScreenController {
                     }
                 }
             }
-            backButton.setDisable(false);
         }));
 
         fillTimeline.play();
@@ -224,27 +251,21 @@ public class SolveScreenController {
             Point p = positions.get(idx);
             int r = p.x, c = p.y;
             if (!originallyFilled[r][c]) {
-                TextField cell = (TextField) getNodeByRowColumnIndex(r, c, sudokuGrid);
-                if (cell != null) {
-                    cell.setText(String.valueOf(solutionGrid[r][c]));
-                    cell.setStyle(getCellBorderStyle(r, c)
-                            + "-fx-background-color: #c8e6c9; -fx-font-weight: bold; -fx-font-size: "
-                            + FONT_SIZE + "px; -fx-text-fill: #222222;");
-                }
+                TextField cell = cells[r][c];
+                cell.setText(String.valueOf(solutionGrid[r][c]));
+                cell.setStyle(getCellBorderStyle(r, c)
+                        + "-fx-background-color: #c8e6c9; -fx-font-weight: bold; -fx-font-size: "
+                        + FONT_SIZE + "px; -fx-text-fill: #222222;");
             }
         });
     }
 
-    private javafx.scene.Node getNodeByRowColumnIndex(int row, int column, GridPane gridPane) {
-        for (javafx.scene.Node node : gridPane.getChildren()) {
-            Integer r = GridPane.getRowIndex(node);
-            Integer c = GridPane.getColumnIndex(node);
-            if (r != null && c != null && r == row && c == column) return node;
-        }
-        return null;
-    }
-
     private void goBack() {
+        if (solveJob != null) {
+            solveJob.cancel();
+            solveJob = null;
+        }
+        if (progressTimeline != null) progressTimeline.stop();
         if (fillTimeline != null) fillTimeline.stop();
         try {
             Main.showMainMenu();
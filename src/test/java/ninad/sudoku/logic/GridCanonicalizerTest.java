@@ -0,0 +1,104 @@
+package ninad.sudoku.logic;
+
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class GridCanonicalizerTest {
+
+    /** All 1296 orders of rows (or columns) that keep bands (or stacks) together. */
+    private static final int[][] ORDERS = new int[1296][9];
+
+    static {
+        int[][] perm3 = {{0, 1, 2}, {0, 2, 1}, {1, 0, 2}, {1, 2, 0}, {2, 0, 1}, {2, 1, 0}};
+        int n = 0;
+        for (int[] outer : perm3)
+            for (int[] a : perm3)
+                for (int[] b : perm3)
+                    for (int[] c : perm3) {
+                        int[][] inner = {a, b, c};
+                        for (int s = 0; s < 3; s++)
+                            for (int i = 0; i < 3; i++) ORDERS[n][s * 3 + i] = outer[s] * 3 + inner[s][i];
+                        n++;
+                    }
+    }
+
+    @Test
+    void puzzleWhoseBestFirstRowHasMoreThanTheFewestClues() {
+        // the rows with the fewest clues (three) spread them over all stacks and open 001...;
+        // a four-clue row with an empty stack opens 000001...
+        int[][] grid = parse("140670000760002005002108700650040029009367400030200008905700063076900510080016290");
+        String canonical = new GridCanonicalizer().canonicalString(grid);
+        assertEquals("000001234005060017", canonical.substring(0, 18));
+        assertEquals(bruteForce(grid), canonical);
+    }
+
+    @Test
+    void matchesBruteForceOnGeneratedPuzzlesAndSolutions() {
+        GridCanonicalizer canonicalizer = new GridCanonicalizer();
+        for (long seed = 1; seed <= 3; seed++) {
+            SudokuGenerator generator = new SudokuGenerator("hard", seed);
+            int[][] puzzle = generator.getPuzzleGrid();
+            assertEquals(bruteForce(puzzle), canonicalizer.canonicalString(puzzle), "puzzle of seed " + seed);
+            int[][] solution = generator.getSolutionGrid();
+            assertEquals(bruteForce(solution), canonicalizer.canonicalString(solution), "solution of seed " + seed);
+        }
+    }
+
+    @Test
+    void sameFormUnderTransposeAndRelabelling() {
+        int[][] grid = parse("140670000760002005002108700650040029009367400030200008905700063076900510080016290");
+        int[][] transformed = new int[9][9];
+        int[] orders = ORDERS[777], columns = ORDERS[123];
+        for (int r = 0; r < 9; r++) {
+            for (int c = 0; c < 9; c++) {
+                int v = grid[columns[c]][orders[r]];
+                transformed[r][c] = v == 0 ? 0 : 10 - v;
+            }
+        }
+        GridCanonicalizer canonicalizer = new GridCanonicalizer();
+        assertArrayEquals(canonicalizer.canonicalize(grid), canonicalizer.canonicalize(transformed));
+    }
+
+    /** Minlex form by trying both orientations, every row order and every column order. */
+    private static String bruteForce(int[][] grid) {
+        int[] best = null;
+        int[] form = new int[81];
+        int[] labels = new int[10];
+        for (int t = 0; t < 2; t++) {
+            for (int[] rows : ORDERS) {
+                for (int[] columns : ORDERS) {
+                    Arrays.fill(labels, 0);
+                    int next = 1;
+                    boolean smaller = best == null, larger = false;
+                    for (int i = 0; i < 81 && !larger; i++) {
+                        int r = rows[i / 9], c = columns[i % 9];
+                        int v = t == 0 ? grid[r][c] : grid[c][r];
+                        if (v != 0) {
+                            if (labels[v] == 0) labels[v] = next++;
+                            v = labels[v];
+                        }
+                        form[i] = v;
+                        if (!smaller) {
+                            if (v > best[i]) larger = true;
+                            else if (v < best[i]) smaller = true;
+                        }
+                    }
+                    if (smaller) best = form.clone();
+                }
+            }
+        }
+        StringBuilder text = new StringBuilder();
+        for (int v : best) text.append(v);
+        return text.toString();
+    }
+
+    private static int[][] parse(String cells) {
+        int[][] grid = new int[9][9];
+        for (int i = 0; i < 81; i++) grid[i / 9][i % 9] = cells.charAt(i) - '0';
+        return grid;
+    }
+}
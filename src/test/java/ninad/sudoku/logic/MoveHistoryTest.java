@@ -0,0 +1,183 @@
+package ninad.sudoku.logic;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MoveHistoryTest {
+
+    private int[][] solution;
+    private GameState state;
+    private PencilMarks marks;
+    private MoveHistory history;
+    private final List<Integer> empty = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        SudokuGenerator generator = new SudokuGenerator("easy", 7);
+        solution = generator.getSolutionGrid();
+        state = new GameState(generator.getPuzzleGrid());
+        marks = new PencilMarks(state.shape());
+        history = new MoveHistory(state, marks);
+        for (int cell = 0; cell < 81; cell++) {
+            if (state.get(cell / 9, cell % 9) == 0) empty.add(cell);
+        }
+    }
+
+    @Test
+    void undoAndRedoRetraceEveryMove() {
+        List<String> seen = playMoves(150);
+        for (int i = seen.size() - 1; i > 0; i--) {
+            assertTrue(history.undo());
+            assertEquals(seen.get(i - 1), snapshot(), "after undoing to " + (i - 1));
+        }
+        assertFalse(history.undo());
+        assertFalse(history.canUndo());
+        for (int i = 1; i < seen.size(); i++) {
+            assertTrue(history.redo());
+            assertEquals(seen.get(i), snapshot(), "after redoing to " + i);
+        }
+        assertFalse(history.redo());
+        assertFalse(history.canRedo());
+    }
+
+    @Test
+    void jumpsLandOnTheSameStateAsStepping() {
+        List<String> seen = playMoves(5 * MoveHistory.SNAPSHOT_INTERVAL + 17);
+        int[] targets = {0, 300, 63, 64, 65, 200, 1, seen.size() - 1, 128, 129, 127, 5};
+        for (int target : targets) {
+            history.jumpTo(target);
+            assertEquals(target, history.position());
+            assertEquals(seen.get(target), snapshot(), "after jumping to " + target);
+        }
+        assertThrows(IllegalArgumentException.class, () -> history.jumpTo(seen.size()));
+        assertThrows(IllegalArgumentException.class, () -> history.jumpTo(-1));
+    }
+
+    @Test
+    void placingRemovesPeerNotesAndUndoBringsThemBack() {
+        int cell = empty.get(0), row = cell / 9, col = cell % 9;
+        int digit = solution[row][col];
+        String before = snapshot();
+        int peer = -1;
+        for (int other : empty) {
+            if (other != cell && (other / 9 == row || other % 9 == col)) {
+                peer = other;
+                break;
+            }
+        }
+        history.toggleNote(peer / 9, peer % 9, digit);
+        history.toggleNote(row, col, digit);
+        String noted = snapshot();
+
+        assertTrue(history.play(row, col, digit, 5, 1));
+        assertFalse(marks.has(peer / 9, peer % 9, digit));
+        assertEquals(0, marks.get(row, col));
+        assertEquals(5, history.score());
+
+        assertTrue(history.undo());
+        assertEquals(noted, snapshot());
+        assertTrue(marks.has(peer / 9, peer % 9, digit));
+        assertTrue(history.undo());
+        assertTrue(history.undo());
+        assertEquals(before, snapshot());
+    }
+
+    @Test
+    void fillingNotesIsOneMove() {
+        history.play(empty.get(0) / 9, empty.get(0) % 9, solution[empty.get(0) / 9][empty.get(0) % 9], 5, 1);
+        String before = snapshot();
+        assertTrue(history.fillNotes());
+        for (int cell : empty) {
+            assertEquals(state.get(cell / 9, cell % 9) == 0 ? state.candidates(cell / 9, cell % 9) : 0,
+                    marks.get(cell / 9, cell % 9));
+        }
+        assertFalse(history.fillNotes());
+        String filled = snapshot();
+
+        assertTrue(history.undo());
+        assertEquals(before, snapshot());
+        assertTrue(history.redo());
+        assertEquals(filled, snapshot());
+        assertFalse(history.canRedo());
+    }
+
+    @Test
+    void pastTheCapMemoryStaysBoundedButUndoStillReachesTheStart() {
+        List<String> seen = playMoves(3 * MoveHistory.MAX_RECORDS + 100);
+        String last = snapshot();
+        assertTrue(history.size() <= MoveHistory.ARCHIVE_SLOTS + MoveHistory.MAX_RECORDS, "size " + history.size());
+        assertEquals(history.size(), history.position());
+
+        // the recent moves are still kept one by one
+        for (int i = 1; i <= MoveHistory.SNAPSHOT_INTERVAL; i++) {
+            assertTrue(history.undo());
+            assertEquals(seen.get(seen.size() - 1 - i), snapshot());
+        }
+        // further back, undo steps through older states until the start
+        Set<String> states = new HashSet<>(seen);
+        int undos = 0;
+        while (history.undo()) {
+            assertTrue(states.contains(snapshot()));
+            undos++;
+        }
+        assertTrue(undos < history.size());
+        assertEquals(0, history.position());
+        assertEquals(seen.get(0), snapshot());
+
+        history.jumpTo(history.size());
+        assertEquals(last, snapshot());
+
+        // a move made at an old point drops everything after it
+        history.jumpTo(1);
+        int cell = firstEmptyCell();
+        assertTrue(history.play(cell / 9, cell % 9, solution[cell / 9][cell % 9], 5, 1));
+        assertEquals(history.size(), history.position());
+        assertFalse(history.canRedo());
+        assertTrue(history.undo());
+        assertTrue(history.undo());
+        assertEquals(seen.get(0), snapshot());
+    }
+
+    /** Place and erase digits, with a note now and then; returns the state at each point, the start first. */
+    private List<String> playMoves(int count) {
+        List<String> seen = new ArrayList<>();
+        seen.add(snapshot());
+        for (int i = 0; i < count; i++) {
+            int cell = empty.get(i * 7 % empty.size()), row = cell / 9, col = cell % 9;
+            if (state.get(row, col) != 0) {
+                assertTrue(history.play(row, col, 0, 0, 0));
+            } else if (i % 5 == 0) {
+                history.toggleNote(row, col, i % 9 + 1);
+            } else {
+                assertTrue(history.play(row, col, solution[row][col], 5, history.streak() + 1));
+            }
+            seen.add(snapshot());
+        }
+        return seen;
+    }
+
+    private int firstEmptyCell() {
+        for (int cell : empty) {
+            if (state.get(cell / 9, cell % 9) == 0) return cell;
+        }
+        throw new AssertionError("No empty cell");
+    }
+
+    private String snapshot() {
+        StringBuilder text = new StringBuilder();
+        for (int row = 0; row < 9; row++) {
+            for (int col = 0; col < 9; col++) text.append(state.get(row, col)).append(':').append(marks.get(row, col)).append(' ');
+        }
+        return text.append(history.score()).append('/').append(history.streak()).toString();
+    }
+}
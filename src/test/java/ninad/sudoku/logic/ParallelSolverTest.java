@@ -0,0 +1,109 @@
+package ninad.sudoku.logic;
+
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ParallelSolverTest {
+
+    private static final String[] HARD = {
+            "800000000003600000070090200050007000000045700000100030001000068008500010090000400",
+            "020403700000000032000000004040200070800050000000001000500000900030900007001008600",
+            "000000000000003085001020000000507000004000100090000000500000073002010000000040009",
+    };
+
+    private ForkJoinPool pool;
+    private ParallelSolver parallel;
+
+    @BeforeEach
+    void setUp() {
+        pool = new ForkJoinPool(4); // more workers than cores still splits the search
+        parallel = new ParallelSolver(pool);
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdown();
+    }
+
+    @Test
+    void modeCreatesParallelSolver() {
+        assertInstanceOf(ParallelSolver.class, SudokuSolver.create(SudokuSolver.Mode.PARALLEL));
+    }
+
+    @Test
+    void hardPuzzlesMatchSequentialSolvers() {
+        for (String puzzle : HARD) assertSameAsSequential(parse(puzzle));
+    }
+
+    @Test
+    void largePuzzlesThatGoThroughThePoolMatchSequentialSolvers() {
+        for (long seed = 1; seed <= 2; seed++) {
+            int[][] puzzle = new SudokuGenerator(BoardShape.forSize(16), "hard", SudokuGenerator.Removal.UNIQUE,
+                    SudokuGenerator.FullGrid.SHUFFLE, seed).getPuzzleGrid();
+            assertSameAsSequential(puzzle);
+        }
+    }
+
+    @Test
+    void ambiguousGridsCountLikeSequentialSolvers() {
+        int[][] empty = new int[9][9];
+        assertEquals(1, parallel.countSolutions(empty, 1));
+        assertEquals(2, parallel.countSolutions(empty, 2));
+        assertSolves(empty, parallel.solveCopy(empty));
+
+        int[][] sparse = parse(HARD[0]);
+        sparse[0][0] = 0;
+        sparse[1][2] = 0;
+        assertEquals(new DancingLinksSolver().countSolutions(sparse, 2), parallel.countSolutions(sparse, 2));
+        assertSolves(sparse, parallel.solveCopy(sparse));
+    }
+
+    @Test
+    void unsolvableAndConflictingGridsHaveNoSolution() {
+        int[][] unsolvable = parse(HARD[0]);
+        unsolvable[0][1] = 2; // clashes with no clue, but the only solution has 1 there
+        assertEquals(0, new DancingLinksSolver().countSolutions(unsolvable, 2));
+        assertEquals(0, parallel.countSolutions(unsolvable, 2));
+        assertFalse(parallel.solve(unsolvable));
+
+        int[][] conflicting = parse(HARD[0]);
+        conflicting[0][8] = 8;
+        assertEquals(0, parallel.countSolutions(conflicting, 1));
+        assertEquals(0, parallel.countSolutions(conflicting, 2));
+    }
+
+    private void assertSameAsSequential(int[][] puzzle) {
+        int[][] expected = new DancingLinksSolver().solveCopy(puzzle);
+        assertNotNull(expected);
+        assertArrayEquals(expected, new PropagatingSolver().solveCopy(puzzle));
+        assertArrayEquals(expected, parallel.solveCopy(puzzle));
+        assertEquals(1, parallel.countSolutions(puzzle, 1));
+        assertEquals(1, parallel.countSolutions(puzzle, 2));
+    }
+
+    private static void assertSolves(int[][] puzzle, int[][] solution) {
+        assertNotNull(solution);
+        assertTrue(new GameState(solution).isSolved());
+        for (int row = 0; row < puzzle.length; row++) {
+            for (int col = 0; col < puzzle.length; col++) {
+                if (puzzle[row][col] != 0) assertEquals(puzzle[row][col], solution[row][col]);
+            }
+        }
+    }
+
+    private static int[][] parse(String cells) {
+        int[][] grid = new int[9][9];
+        for (int i = 0; i < 81; i++) grid[i / 9][i % 9] = cells.charAt(i) - '0';
+        return grid;
+    }
+}
@@ -0,0 +1,92 @@
+package ninad.sudoku.logic;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PuzzleBankTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void recordsReadBackAfterReopening() throws IOException {
+        Path path = dir.resolve("puzzles.bank");
+        SudokuGenerator[] generators = new SudokuGenerator[3];
+        try (PuzzleBank bank = PuzzleBank.open(path)) {
+            for (int i = 0; i < generators.length; i++) {
+                generators[i] = new SudokuGenerator("easy", i + 1);
+                assertEquals(i, bank.append(generators[i].getPuzzleGrid(), generators[i].getSolutionGrid(),
+                        i == 2 ? null : DifficultyRater.Technique.NAKED_SINGLE, generators[i].getSeed()));
+                assertArrayEquals(generators[i].getPuzzleGrid(), bank.puzzle(i)); // read before the next append
+            }
+            bank.append(generators[0].getPuzzleGrid(), null, DifficultyRater.Technique.X_WING, 99);
+        }
+        try (PuzzleBank bank = PuzzleBank.open(path)) {
+            assertEquals(4, bank.size());
+            for (int i = 0; i < generators.length; i++) {
+                assertArrayEquals(generators[i].getPuzzleGrid(), bank.puzzle(i));
+                assertArrayEquals(generators[i].getSolutionGrid(), bank.solution(i));
+                assertEquals(generators[i].getSeed(), bank.seed(i));
+            }
+            assertNull(bank.rating(2));
+            assertNull(bank.solution(3));
+            assertEquals(DifficultyRater.Technique.X_WING, bank.rating(3));
+
+            assertEquals(2, bank.count("easy"));
+            assertEquals(2, bank.count("EASY"));
+            assertEquals(1, bank.count("Hard"));
+            assertEquals(0, bank.count("medium"));
+            assertEquals(3, bank.randomIndex("HARD", new SplittableRandom(1)));
+            assertEquals(-1, bank.randomIndex("medium", new SplittableRandom(1)));
+        }
+    }
+
+    @Test
+    void recordCutShortIsNotCounted() throws IOException {
+        Path path = dir.resolve("torn.bank");
+        SudokuGenerator generator = new SudokuGenerator("easy", 5);
+        try (PuzzleBank bank = PuzzleBank.open(path)) {
+            bank.append(generator.getPuzzleGrid(), generator.getSolutionGrid(), null, 5);
+            bank.append(generator.getPuzzleGrid(), generator.getSolutionGrid(), null, 6);
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            channel.truncate(Files.size(path) - 3);
+        }
+        try (PuzzleBank bank = PuzzleBank.open(path)) {
+            assertEquals(1, bank.size());
+            assertEquals(5, bank.seed(0));
+        }
+    }
+
+    @Test
+    void otherLayoutsAndOtherFilesAreRefused() throws IOException {
+        Path path = dir.resolve("standard.bank");
+        PuzzleBank.open(path).close();
+        assertThrows(IOException.class, () -> PuzzleBank.open(path, BoardShape.STANDARD, false));
+        assertThrows(IOException.class, () -> PuzzleBank.open(path, BoardShape.forSize(4), true));
+
+        Path other = dir.resolve("other.txt");
+        Files.writeString(other, "not a puzzle bank");
+        assertThrows(IOException.class, () -> PuzzleBank.open(other));
+        assertThrows(IllegalArgumentException.class, () -> PuzzleBank.open(dir.resolve("big.bank"), BoardShape.forSize(16), true));
+
+        try (PuzzleBank bank = PuzzleBank.open(dir.resolve("bare.bank"), BoardShape.STANDARD, false)) {
+            assertFalse(bank.hasSolutions());
+            assertTrue(bank.toString().contains("bare.bank"));
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package ninad.sudoku.logic;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class SavedGameTest {
+
+    private SudokuGenerator generator;
+    private GameState state;
+    private PencilMarks marks;
+
+    @BeforeEach
+    void setUp() {
+        generator = new SudokuGenerator("medium", 11);
+        state = new GameState(generator.getPuzzleGrid());
+        marks = new PencilMarks(state.shape());
+        int[][] solution = generator.getSolutionGrid();
+        int placed = 0;
+        for (int row = 0; row < 9; row++) {
+            for (int col = 0; col < 9; col++) {
+                if (state.get(row, col) != 0) continue;
+                if (placed++ < 10) state.set(row, col, solution[row][col]);
+                else if (placed % 3 == 0) marks.set(row, col, state.candidates(row, col));
+            }
+        }
+    }
+
+    @Test
+    void decodeGivesBackWhatWasEncoded() throws IOException {
+        SavedGame saved = capture("Medium");
+        SavedGame decoded = SavedGame.decode(saved.encode());
+
+        assertEquals(42L, decoded.getId());
+        assertEquals("medium", decoded.getDifficulty());
+        assertArrayEquals(generator.getPuzzleGrid(), decoded.getPuzzle());
+        assertArrayEquals(generator.getSolutionGrid(), decoded.getSolution());
+        assertArrayEquals(state.toGrid(), decoded.getDigits());
+        for (int row = 0; row < 9; row++) {
+            for (int col = 0; col < 9; col++) assertEquals(marks.get(row, col), decoded.getNotes(row, col));
+        }
+        assertEquals(321, decoded.getElapsedSeconds());
+        assertEquals(150, decoded.getScore());
+        assertEquals(4, decoded.getStreak());
+        assertEquals(37, decoded.getMoves());
+    }
+
+    @Test
+    void damagedOrTruncatedBytesAreRejected() {
+        byte[] bytes = capture("easy").encode();
+        for (int i : new int[]{0, 5, 20, bytes.length / 2, bytes.length - 5, bytes.length - 1}) {
+            byte[] damaged = bytes.clone();
+            damaged[i] ^= 0x10;
+            assertThrows(IOException.class, () -> SavedGame.decode(damaged), "flipped bit in byte " + i);
+        }
+        assertThrows(IOException.class, () -> SavedGame.decode(Arrays.copyOf(bytes, bytes.length - 1)));
+        assertThrows(IOException.class, () -> SavedGame.decode(Arrays.copyOf(bytes, 3)));
+        assertThrows(IOException.class, () -> SavedGame.decode(new byte[0]));
+    }
+
+    private SavedGame capture(String difficulty) {
+        return SavedGame.capture(42L, difficulty, generator.getPuzzleGrid(), generator.getSolutionGrid(), state,
+                marks, 321, 150, 4, 37);
+    }
+}
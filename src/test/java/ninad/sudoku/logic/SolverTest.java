@@ -0,0 +1,120 @@
+package ninad.sudoku.logic;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SolverTest {
+
+    private static final String HARD = "800000000003600000070090200050007000000045700000100030001000068008500010090000400";
+
+    private ForkJoinPool pool;
+    private List<Solver> solvers;
+
+    @BeforeEach
+    void setUp() {
+        pool = new ForkJoinPool(2);
+        solvers = List.of(new BacktrackingSolver(), new PropagatingSolver(), new DancingLinksSolver(),
+                new IterativeSolver(), new ParallelSolver(pool));
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdown();
+    }
+
+    @Test
+    void uniquePuzzleCountsOneAtEveryLimit() {
+        int[][] puzzle = parse(HARD);
+        for (Solver solver : solvers) {
+            assertCounts(solver, puzzle, 1, 1, 1);
+            int[][] solution = solver.solveCopy(puzzle);
+            assertTrue(new GameState(solution).isSolved(), name(solver));
+        }
+    }
+
+    @Test
+    void twoSolutionGridStopsAtTheLimit() {
+        int[][] grid = twoSolutionGrid();
+        for (Solver solver : solvers) assertCounts(solver, grid, 1, 2, 2);
+    }
+
+    @Test
+    void emptyGridCountsUpToTheLimit() {
+        int[][] empty = new int[9][9];
+        for (Solver solver : solvers) assertCounts(solver, empty, 1, 2, 5);
+    }
+
+    @Test
+    void unsolvableAndConflictingGridsCountZero() {
+        int[][] unsolvable = parse(HARD);
+        unsolvable[0][1] = 2; // no clue clashes, but the only solution has 1 there
+        int[][] conflicting = parse(HARD);
+        conflicting[0][8] = 8;
+        for (Solver solver : solvers) {
+            assertCounts(solver, unsolvable, 0, 0, 0);
+            assertCounts(solver, conflicting, 0, 0, 0);
+            int[][] copy = parse(HARD);
+            copy[0][8] = 8;
+            assertFalse(solver.solve(copy), name(solver));
+            assertArrayEquals(conflicting, copy, name(solver) + " left the grid as it was");
+            assertNull(solver.solveCopy(unsolvable), name(solver));
+        }
+    }
+
+    /** Counts at limits 1, 2 and 5, and the grid left as it was. */
+    private static void assertCounts(Solver solver, int[][] grid, int one, int two, int five) {
+        int[][] before = copy(grid);
+        assertEquals(one, solver.countSolutions(grid, 1), name(solver) + " at limit 1");
+        assertEquals(two, solver.countSolutions(grid, 2), name(solver) + " at limit 2");
+        assertEquals(five, solver.countSolutions(grid, 5), name(solver) + " at limit 5");
+        assertArrayEquals(before, grid, name(solver) + " modified the grid");
+    }
+
+    /**
+     * A solved grid with the four corners of a rectangle erased, where the
+     * rectangle spans two boxes and its diagonal corners hold the same digits:
+     * swapping them gives the one other solution.
+     */
+    private static int[][] twoSolutionGrid() {
+        int[][] grid = new DancingLinksSolver().solveCopy(parse(HARD));
+        for (int r1 = 0; r1 < 9; r1++) {
+            for (int r2 = r1 + 1; r2 < r1 / 3 * 3 + 3; r2++) {
+                for (int c1 = 0; c1 < 9; c1++) {
+                    for (int c2 = (c1 / 3 + 1) * 3; c2 < 9; c2++) {
+                        if (grid[r1][c1] == grid[r2][c2] && grid[r1][c2] == grid[r2][c1]) {
+                            grid[r1][c1] = grid[r1][c2] = grid[r2][c1] = grid[r2][c2] = 0;
+                            return grid;
+                        }
+                    }
+                }
+            }
+        }
+        throw new AssertionError("The grid has no such rectangle");
+    }
+
+    private static String name(Solver solver) {
+        return solver.getClass().getSimpleName();
+    }
+
+    private static int[][] copy(int[][] grid) {
+        int[][] copy = new int[grid.length][];
+        for (int i = 0; i < grid.length; i++) copy[i] = grid[i].clone();
+        return copy;
+    }
+
+    private static int[][] parse(String cells) {
+        int[][] grid = new int[9][9];
+        for (int i = 0; i < 81; i++) grid[i / 9][i % 9] = cells.charAt(i) - '0';
+        return grid;
+    }
+}
@@ -0,0 +1,61 @@
+package ninad.sudoku.logic;
+
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SudokuGeneratorTest {
+
+    @Test
+    void sameSeedGivesSamePuzzle() {
+        for (String difficulty : new String[]{"easy", "medium", "hard"}) {
+            SudokuGenerator first = new SudokuGenerator(difficulty, 123);
+            SudokuGenerator second = new SudokuGenerator(difficulty, 123);
+            assertArrayEquals(first.getPuzzleGrid(), second.getPuzzleGrid(), difficulty);
+            assertArrayEquals(first.getSolutionGrid(), second.getSolutionGrid(), difficulty);
+
+            SudokuGenerator rebuilt = SudokuGenerator.fromPuzzleId(first.getPuzzleId());
+            assertEquals(first.getPuzzleId(), rebuilt.getPuzzleId());
+            assertArrayEquals(first.getPuzzleGrid(), rebuilt.getPuzzleGrid(), difficulty);
+        }
+        assertFalse(Arrays.deepEquals(new SudokuGenerator("easy", 1).getPuzzleGrid(),
+                new SudokuGenerator("easy", 2).getPuzzleGrid()));
+    }
+
+    @Test
+    void puzzlesHaveOneSolutionThatMatchesTheirClues() {
+        DancingLinksSolver solver = new DancingLinksSolver();
+        for (SudokuGenerator.Removal removal : new SudokuGenerator.Removal[]{
+                SudokuGenerator.Removal.UNIQUE, SudokuGenerator.Removal.MINIMAL}) {
+            for (long seed = 1; seed <= 5; seed++) {
+                SudokuGenerator generator = new SudokuGenerator(BoardShape.STANDARD, "hard", removal,
+                        SudokuGenerator.FullGrid.SHUFFLE, seed);
+                int[][] puzzle = generator.getPuzzleGrid(), solution = generator.getSolutionGrid();
+                assertEquals(1, solver.countSolutions(puzzle, 2), removal + " seed " + seed);
+                assertArrayEquals(solution, solver.solveCopy(puzzle), removal + " seed " + seed);
+                assertTrue(new GameState(solution).isSolved());
+            }
+        }
+    }
+
+    @Test
+    void minimalPuzzlesLoseUniquenessWithoutAnyClue() {
+        DancingLinksSolver solver = new DancingLinksSolver();
+        int[][] puzzle = new SudokuGenerator(BoardShape.STANDARD, "hard", SudokuGenerator.Removal.MINIMAL,
+                SudokuGenerator.FullGrid.BACKTRACKING, 3).getPuzzleGrid();
+        for (int row = 0; row < 9; row++) {
+            for (int col = 0; col < 9; col++) {
+                int clue = puzzle[row][col];
+                if (clue == 0) continue;
+                puzzle[row][col] = 0;
+                assertEquals(2, solver.countSolutions(puzzle, 2), "without the clue at " + row + "," + col);
+                puzzle[row][col] = clue;
+            }
+        }
+    }
+}